@@ -0,0 +1,67 @@
+package com.stockmarket.bench;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.SaleReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sprzedaż FIFO zdejmująca wszystkie partie pozycji jednym wywołaniem.
+ *
+ * Pozycja odbudowywana jest przed każdym wywołaniem (Level.Invocation) - przy tysiącach partii
+ * koszt pomiaru narzutu JMH jest pomijalny wobec samej operacji.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FifoSaleBenchmark {
+
+    @Param({"1000", "100000"})
+    public int lots;
+
+    private Asset asset;
+    private Position position;
+    private int totalQuantity;
+
+    @Setup(Level.Trial)
+    public void setUpAsset() {
+        asset = new Share("FIFO", 100.0);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpPosition() {
+        position = new Position(asset);
+        int day = (int) Fixtures.DATE.toEpochDay();
+        for (int i = 0; i < lots; i++) {
+            position.addLot(day + i % 3650, 10, 90.0 + i % 20);
+        }
+        totalQuantity = position.getTotalQuantity();
+    }
+
+    @Benchmark
+    public SaleReport sellAllWithReport() {
+        return position.sellFifo(Fixtures.DATE, totalQuantity, 101.0);
+    }
+
+    @Benchmark
+    public double sellAllStreaming() {
+        return position.sellFifo(totalQuantity, 101.0, null);
+    }
+}
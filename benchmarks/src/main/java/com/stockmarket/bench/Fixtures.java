@@ -0,0 +1,51 @@
+package com.stockmarket.bench;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Wspólne dane dla benchmarków - deterministyczne (stały seed), żeby przebiegi były porównywalne.
+ */
+final class Fixtures {
+    static final LocalDate DATE = LocalDate.of(2023, 1, 2);
+    static final long SEED = 42L;
+
+    // gotówki wystarczy na każdy scenariusz, żeby nie mierzyć wyjątków
+    static final double CASH = 1e15;
+
+    private Fixtures() {
+    }
+
+    static Asset[] assets(int count) {
+        Asset[] assets = new Asset[count];
+        for (int i = 0; i < count; i++) {
+            String ticker = "T" + i;
+            switch (i % 3) {
+                case 0 -> assets[i] = new Share(ticker, 100.0);
+                case 1 -> assets[i] = new Commodity(ticker, 100.0, 0.05);
+                default -> assets[i] = new Currency(ticker, 100.0, 0.01);
+            }
+        }
+        return assets;
+    }
+
+    /**
+     * Portfel z podaną liczbą pozycji i łączną liczbą partii rozłożoną równo między pozycje.
+     */
+    static Portfolio portfolio(Asset[] assets, int totalLots) {
+        Portfolio portfolio = new Portfolio(CASH);
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < totalLots; i++) {
+            Asset asset = assets[i % assets.length];
+            LocalDate date = DATE.plusDays(i / assets.length % 3650);
+            portfolio.executeBuy(asset, 1 + random.nextInt(100), date);
+        }
+        return portfolio;
+    }
+}
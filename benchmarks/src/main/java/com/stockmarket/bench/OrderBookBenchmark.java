@@ -0,0 +1,84 @@
+package com.stockmarket.bench;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.SaleReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Składanie i realizacja zleceń przy księdze o zadanej głębokości.
+ *
+ * Księga wypełniana jest zleceniami spoczywającymi (limit poza ceną rynkową), więc jej
+ * głębokość nie maleje w trakcie pomiaru; mierzona operacja dokłada/zdejmuje zlecenie wykonalne.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    @Param({"10", "1000"})
+    public int positions;
+
+    @Param({"1000", "100000"})
+    public int bookDepth;
+
+    private Asset[] assets;
+    private Portfolio portfolio;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        assets = Fixtures.assets(positions);
+        portfolio = Fixtures.portfolio(assets, positions);
+        random = new SplittableRandom(Fixtures.SEED);
+        for (int i = 0; i < bookDepth; i++) {
+            Asset asset = assets[i % assets.length];
+            // kupno poniżej rynku / sprzedaż powyżej - nigdy nie wykonalne
+            if ((i & 1) == 0) {
+                portfolio.placeOrder(OrderSide.BUY, asset, 1, 50.0 + random.nextInt(40), Fixtures.DATE);
+            } else {
+                portfolio.placeOrder(OrderSide.SELL, asset, 1, 110.0 + random.nextInt(40), Fixtures.DATE);
+            }
+        }
+    }
+
+    @Benchmark
+    public int placeRestingOrder() {
+        Asset asset = assets[next++ % assets.length];
+        portfolio.placeOrder(OrderSide.BUY, asset, 1, 50.0 + random.nextInt(40), Fixtures.DATE);
+        return portfolio.getPendingOrderCount();
+    }
+
+    @Benchmark
+    public SaleReport placeAndProcessExecutable() {
+        Asset asset = assets[next++ % assets.length];
+        portfolio.placeOrder(OrderSide.BUY, asset, 1, 150.0, Fixtures.DATE);
+        return portfolio.processNextExecutableOrder();
+    }
+
+    @Benchmark
+    public boolean placeAndCancel() {
+        Asset asset = assets[next++ % assets.length];
+        long id = portfolio.placeOrder(OrderSide.BUY, asset, 1, 50.0 + random.nextInt(40), Fixtures.DATE);
+        return portfolio.cancelOrder(id);
+    }
+}
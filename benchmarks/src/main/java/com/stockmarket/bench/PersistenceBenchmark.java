@@ -0,0 +1,100 @@
+package com.stockmarket.bench;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.io.PortfolioPersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zapis i odczyt portfela (tekst i binarnie) dla 10k/100k/1M partii.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    @Param({"100", "10000"})
+    public int positions;
+
+    @Param({"10000", "100000", "1000000"})
+    public int lots;
+
+    private final PortfolioPersistence persistence = new PortfolioPersistence();
+    private Portfolio portfolio;
+    private Path dir;
+    private Path textFile;
+    private Path binaryFile;
+    private Path scratchFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Asset[] assets = Fixtures.assets(positions);
+        portfolio = Fixtures.portfolio(assets, lots);
+        dir = Files.createTempDirectory("persistence-bench");
+        textFile = dir.resolve("portfolio.txt");
+        binaryFile = dir.resolve("portfolio.bin");
+        scratchFile = dir.resolve("scratch");
+        persistence.save(textFile, portfolio);
+        persistence.saveBinary(binaryFile, portfolio);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(textFile);
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(scratchFile);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Path saveText() {
+        persistence.save(scratchFile, portfolio);
+        return scratchFile;
+    }
+
+    @Benchmark
+    public Path saveBinary() {
+        persistence.saveBinary(scratchFile, portfolio);
+        return scratchFile;
+    }
+
+    @Benchmark
+    public Portfolio loadText() {
+        return persistence.load(textFile);
+    }
+
+    @Benchmark
+    public Portfolio loadTextMapped() {
+        return persistence.loadMapped(textFile);
+    }
+
+    @Benchmark
+    public Portfolio loadTextParallel() {
+        return persistence.loadParallel(textFile);
+    }
+
+    @Benchmark
+    public Portfolio loadBinary() {
+        return persistence.load(binaryFile);
+    }
+}
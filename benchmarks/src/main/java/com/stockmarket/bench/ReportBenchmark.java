@@ -0,0 +1,45 @@
+package com.stockmarket.bench;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.report.PortfolioReportGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({"100", "10000"})
+    public int positions;
+
+    private final PortfolioReportGenerator generator = new PortfolioReportGenerator();
+    private Portfolio portfolio;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Asset[] assets = Fixtures.assets(positions);
+        portfolio = Fixtures.portfolio(assets, positions * 4);
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return generator.generateReport(portfolio);
+    }
+}
@@ -1,22 +1,34 @@
 package com.stockmarket.domain;
 
+import java.util.Arrays;
+
 /**
  * Instrument rynkowy ("aktywo") z parametrami domenowymi.
  *
  * Portfolio nie przechowuje tutaj stanu posiadania (ilości). Ilości trzymane są w partiach zakupowych.
  */
 public abstract class Asset {
+    private static final PriceListener[] NO_LISTENERS = new PriceListener[0];
+
     private final String ticker;
-    private double marketPrice;
+    private final int assetId;
+    // Asset bywa współdzielone między wątkami (portfele w różnych shardach) - odczyt bez blokady
+    private volatile double marketPrice;
+    // rośnie przy każdej zmianie ceny; zapisywana po cenie, więc kto ją odczytał, widzi też cenę
+    private volatile long priceVersion;
+
+    // copy-on-write: powiadamianie iteruje po lokalnej referencji, bez alokacji; zmiany pod this
+    private volatile PriceListener[] listeners = NO_LISTENERS;
 
     protected Asset(String ticker, double marketPrice) {
         if (ticker == null || ticker.isBlank()) {
             throw new IllegalArgumentException("Ticker nie może być pusty");
         }
-        if (marketPrice < 0) {
-            throw new IllegalArgumentException("Cena rynkowa nie może być ujemna");
+        if (!(marketPrice >= 0)) {
+            throw new IllegalArgumentException("Cena rynkowa nie może być ujemna ani NaN");
         }
         this.ticker = ticker;
+        this.assetId = AssetRegistry.global().intern(ticker);
         this.marketPrice = marketPrice;
     }
 
@@ -24,35 +36,138 @@ public abstract class Asset {
         return ticker;
     }
 
+    /**
+     * Gęsty identyfikator tickera z {@link AssetRegistry#global()}.
+     */
+    public int getAssetId() {
+        return assetId;
+    }
+
     public double getMarketPrice() {
         return marketPrice;
     }
 
+    /**
+     * Wersja ceny: zmienia się przy każdej zmianie ceny rynkowej. Portfel porównuje ją z wersją
+     * zapamiętaną przy ostatniej wycenie pozycji, zamiast nasłuchiwać zmian.
+     */
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
     public void setMarketPrice(double marketPrice) {
-        if (marketPrice < 0) {
-            throw new IllegalArgumentException("Cena rynkowa nie może być ujemna");
+        if (!(marketPrice >= 0)) {
+            throw new IllegalArgumentException("Cena rynkowa nie może być ujemna ani NaN");
         }
-        this.marketPrice = marketPrice;
+        double oldPrice;
+        synchronized (this) {
+            oldPrice = this.marketPrice;
+            if (Double.compare(oldPrice, marketPrice) == 0) {
+                return;
+            }
+            this.marketPrice = marketPrice;
+            priceVersion++;
+        }
+
+        PriceListener[] current = listeners;
+        for (PriceListener l : current) {
+            l.onPriceChanged(this, oldPrice, marketPrice);
+        }
+    }
+
+    public synchronized void addPriceListener(PriceListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener nie może być null");
+        }
+        PriceListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public synchronized boolean removePriceListener(PriceListener listener) {
+        PriceListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                PriceListener[] next = new PriceListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                listeners = next;
+                return true;
+            }
+        }
+        return false;
     }
 
     public double getMarketValue(int quantity) {
+        return tradeValue(marketPrice, quantity);
+    }
+
+    /**
+     * Wartość transakcji po wskazanej cenie jednostkowej (np. cenie wykonania zlecenia).
+     */
+    protected static double tradeValue(double unitPrice, int quantity) {
+        checkTrade(unitPrice, quantity);
+        return unitPrice * quantity;
+    }
+
+    protected static void checkTrade(double unitPrice, int quantity) {
         if (quantity < 0) {
             throw new IllegalArgumentException("Ilość nie może być ujemna");
         }
-        return marketPrice * quantity;
+        if (!(unitPrice >= 0)) {
+            throw new IllegalArgumentException("Cena nie może być ujemna");
+        }
     }
 
     public abstract AssetType getType();
 
+    /**
+     * Walidacja wejścia metod wsadowych (Share/Commodity/Currency): zgodne długości tablic, ilości
+     * nieujemne, ceny i parametry (spread, koszt magazynowania) nieujemne i nie NaN - jak w konstruktorach
+     * i setMarketPrice. Osobna pętla, żeby pętle liczące zostały bez rozgałęzień.
+     */
+    static void checkBatch(double[] prices, int[] quantities, double[] params, double[] out) {
+        if (prices == null || quantities == null || out == null) {
+            throw new IllegalArgumentException("Tablice nie mogą być null");
+        }
+        int n = prices.length;
+        if (quantities.length != n || out.length != n || (params != null && params.length != n)) {
+            throw new IllegalArgumentException("Różne długości tablic wsadu");
+        }
+        for (int i = 0; i < n; i++) {
+            if (quantities[i] < 0) {
+                throw new IllegalArgumentException("Ilość nie może być ujemna");
+            }
+            if (!(prices[i] >= 0)) {
+                throw new IllegalArgumentException("Cena rynkowa nie może być ujemna ani NaN: [" + i + "]");
+            }
+            if (params != null && !(params[i] >= 0)) {
+                throw new IllegalArgumentException("Parametr aktywa nie może być ujemny ani NaN: [" + i + "]");
+            }
+        }
+    }
+
     /**
      * Całkowity koszt zakupu (uwzględnia ukryte koszty, np. prowizję/spread).
      */
-    public abstract double calculatePurchaseCost(int quantity);
+    public double calculatePurchaseCost(int quantity) {
+        return calculatePurchaseCost(quantity, marketPrice);
+    }
+
+    /**
+     * Koszt zakupu po wskazanej cenie jednostkowej zamiast bieżącej ceny rynkowej
+     * (wykonanie zlecenia po cenie z jego snapshotu bez zmiany ceny aktywa).
+     */
+    public abstract double calculatePurchaseCost(int quantity, double unitPrice);
 
     /**
      * Całkowite wpływy ze sprzedaży (uwzględnia ukryte koszty, np. prowizję/spread).
      */
-    public abstract double calculateSellProceeds(int quantity);
+    public double calculateSellProceeds(int quantity) {
+        return calculateSellProceeds(quantity, marketPrice);
+    }
+
+    public abstract double calculateSellProceeds(int quantity, double unitPrice);
 
     /**
      * Wartość pozycji po uwzględnieniu specyfiki typu aktywa (np. spread, magazynowanie).
@@ -0,0 +1,78 @@
+package com.stockmarket.domain;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rejestr tickerów nadający im gęste identyfikatory int (0, 1, 2, ...).
+ *
+ * Identyfikator nadawany jest raz i nie zmienia się do końca życia procesu - struktury
+ * wewnętrzne mogą indeksować po nim zamiast hashować String przy każdym dostępie.
+ */
+public final class AssetRegistry {
+    public static final int NO_ID = -1;
+
+    private static final AssetRegistry GLOBAL = new AssetRegistry();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // odczyt bez blokady; zapis (nowy ticker) pod monitorem rejestru
+    private volatile String[] tickers = new String[64];
+    private int size;
+
+    public static AssetRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Zwraca identyfikator tickera, nadając nowy przy pierwszym użyciu.
+     */
+    public int intern(String ticker) {
+        if (ticker == null || ticker.isBlank()) {
+            throw new IllegalArgumentException("Ticker nie może być pusty");
+        }
+        Integer id = ids.get(ticker);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(ticker);
+            if (id != null) {
+                return id;
+            }
+            String[] current = tickers;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            int next = size;
+            current[next] = ticker;
+            size = next + 1;
+            tickers = current;
+            ids.put(ticker, next);
+            return next;
+        }
+    }
+
+    /**
+     * Identyfikator tickera albo NO_ID, jeśli ticker nie był jeszcze rejestrowany.
+     */
+    public int idOf(String ticker) {
+        if (ticker == null) {
+            return NO_ID;
+        }
+        Integer id = ids.get(ticker);
+        return id == null ? NO_ID : id;
+    }
+
+    public String tickerOf(int id) {
+        String[] current = tickers;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            throw new IllegalArgumentException("Nieznany identyfikator aktywa: " + id);
+        }
+        return current[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -24,13 +24,13 @@ public class Commodity extends Asset {
     }
 
     @Override
-    public double calculatePurchaseCost(int quantity) {
-        return getMarketValue(quantity);
+    public double calculatePurchaseCost(int quantity, double unitPrice) {
+        return tradeValue(unitPrice, quantity);
     }
 
     @Override
-    public double calculateSellProceeds(int quantity) {
-        return getMarketValue(quantity);
+    public double calculateSellProceeds(int quantity, double unitPrice) {
+        return tradeValue(unitPrice, quantity);
     }
 
     @Override
@@ -46,4 +46,31 @@ public class Commodity extends Asset {
         }
         return baseCost;
     }
+
+    // --- wyceny wsadowe: wynik bit w bit jak metod skalarnych dla tych samych parametrów ---
+
+    public static void purchaseCosts(double[] prices, int[] quantities, double[] out) {
+        checkBatch(prices, quantities, null, out);
+        for (int i = 0; i < prices.length; i++) {
+            out[i] = prices[i] * quantities[i];
+        }
+    }
+
+    public static void sellProceeds(double[] prices, int[] quantities, double[] out) {
+        purchaseCosts(prices, quantities, out);
+    }
+
+    public static void realValues(double[] prices, int[] quantities, double[] storageCostsPerUnit, double[] out) {
+        if (storageCostsPerUnit == null) {
+            throw new IllegalArgumentException("Tablice nie mogą być null");
+        }
+        checkBatch(prices, quantities, storageCostsPerUnit, out);
+        for (int i = 0; i < prices.length; i++) {
+            int q = quantities[i];
+            // mnożnik 1.0 nie zmienia wyniku, więc wybór zamiast if zachowuje zgodność ze skalarną
+            double multiplier = q > STORAGE_THRESHOLD ? STORAGE_PENALTY_MULTIPLIER : 1.0;
+            double storage = storageCostsPerUnit[i] * q * multiplier;
+            out[i] = Math.max(0, prices[i] * q - storage);
+        }
+    }
 }
@@ -24,16 +24,18 @@ public class Currency extends Asset {
     }
 
     @Override
-    public double calculatePurchaseCost(int quantity) {
+    public double calculatePurchaseCost(int quantity, double unitPrice) {
+        checkTrade(unitPrice, quantity);
         double effectiveSpread = calculateEffectiveSpread(quantity);
-        double askPrice = getMarketPrice() + effectiveSpread;
+        double askPrice = unitPrice + effectiveSpread;
         return askPrice * quantity;
     }
 
     @Override
-    public double calculateSellProceeds(int quantity) {
+    public double calculateSellProceeds(int quantity, double unitPrice) {
+        checkTrade(unitPrice, quantity);
         double effectiveSpread = calculateEffectiveSpread(quantity);
-        double bidPrice = getMarketPrice() - effectiveSpread;
+        double bidPrice = unitPrice - effectiveSpread;
         return Math.max(0, bidPrice * quantity);
     }
 
@@ -49,4 +51,36 @@ public class Currency extends Asset {
         }
         return spread;
     }
+
+    // --- wyceny wsadowe: wynik bit w bit jak metod skalarnych dla tych samych parametrów ---
+
+    public static void purchaseCosts(double[] prices, int[] quantities, double[] spreads, double[] out) {
+        checkSpreads(spreads);
+        checkBatch(prices, quantities, spreads, out);
+        for (int i = 0; i < prices.length; i++) {
+            int q = quantities[i];
+            double effectiveSpread = spreads[i] * (q >= THRESHOLD ? SPREAD_DISCOUNT : 1.0);
+            out[i] = (prices[i] + effectiveSpread) * q;
+        }
+    }
+
+    public static void sellProceeds(double[] prices, int[] quantities, double[] spreads, double[] out) {
+        checkSpreads(spreads);
+        checkBatch(prices, quantities, spreads, out);
+        for (int i = 0; i < prices.length; i++) {
+            int q = quantities[i];
+            double effectiveSpread = spreads[i] * (q >= THRESHOLD ? SPREAD_DISCOUNT : 1.0);
+            out[i] = Math.max(0, (prices[i] - effectiveSpread) * q);
+        }
+    }
+
+    public static void realValues(double[] prices, int[] quantities, double[] spreads, double[] out) {
+        sellProceeds(prices, quantities, spreads, out);
+    }
+
+    private static void checkSpreads(double[] spreads) {
+        if (spreads == null) {
+            throw new IllegalArgumentException("Tablice nie mogą być null");
+        }
+    }
 }
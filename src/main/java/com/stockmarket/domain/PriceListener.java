@@ -0,0 +1,9 @@
+package com.stockmarket.domain;
+
+/**
+ * Obserwator zmian ceny rynkowej aktywa.
+ */
+@FunctionalInterface
+public interface PriceListener {
+    void onPriceChanged(Asset asset, double oldPrice, double newPrice);
+}
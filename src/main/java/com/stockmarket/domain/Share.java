@@ -15,15 +15,15 @@ public class Share extends Asset {
     }
 
     @Override
-    public double calculatePurchaseCost(int quantity) {
-        double tradeValue = getMarketValue(quantity);
+    public double calculatePurchaseCost(int quantity, double unitPrice) {
+        double tradeValue = tradeValue(unitPrice, quantity);
         double fee = Math.max(tradeValue * COMMISSION_RATE, MIN_COMMISSION);
         return tradeValue + fee;
     }
 
     @Override
-    public double calculateSellProceeds(int quantity) {
-        double tradeValue = getMarketValue(quantity);
+    public double calculateSellProceeds(int quantity, double unitPrice) {
+        double tradeValue = tradeValue(unitPrice, quantity);
         double fee = Math.max(tradeValue * COMMISSION_RATE, MIN_COMMISSION);
         return Math.max(0, tradeValue - fee);
     }
@@ -33,4 +33,28 @@ public class Share extends Asset {
         // Wycena pozycji = ile realnie przy sprzedaży całości po bieżącej cenie.
         return calculateSellProceeds(quantity);
     }
+
+    // --- wyceny wsadowe: wynik bit w bit jak metod skalarnych dla tych samych ceny i ilości ---
+
+    public static void purchaseCosts(double[] prices, int[] quantities, double[] out) {
+        checkBatch(prices, quantities, null, out);
+        for (int i = 0; i < prices.length; i++) {
+            double tradeValue = prices[i] * quantities[i];
+            double fee = Math.max(tradeValue * COMMISSION_RATE, MIN_COMMISSION);
+            out[i] = tradeValue + fee;
+        }
+    }
+
+    public static void sellProceeds(double[] prices, int[] quantities, double[] out) {
+        checkBatch(prices, quantities, null, out);
+        for (int i = 0; i < prices.length; i++) {
+            double tradeValue = prices[i] * quantities[i];
+            double fee = Math.max(tradeValue * COMMISSION_RATE, MIN_COMMISSION);
+            out[i] = Math.max(0, tradeValue - fee);
+        }
+    }
+
+    public static void realValues(double[] prices, int[] quantities, double[] out) {
+        sellProceeds(prices, quantities, out);
+    }
 }
@@ -0,0 +1,349 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.exceptions.InsufficientFundsException;
+import com.stockmarket.logic.exceptions.InsufficientHoldingsException;
+import com.stockmarket.logic.metrics.Counter;
+import com.stockmarket.logic.metrics.MetricsRegistry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wielowątkowy wariant Portfolio.
+ *
+ * Pozycje chronione są blokadami paskowymi (stripe wg tickera), więc handel różnymi tickerami
+ * idzie równolegle. Gotówka to double trzymany w AtomicLong: zakup rezerwuje koszt CAS-em przed
+ * dołożeniem partii (i oddaje go, gdy dołożenie się nie uda), sprzedaż rozlicza wpływy po zdjęciu
+ * partii. Sekwencje zleceń z licznika atomowego, księga zleceń pod osobną blokadą.
+ *
+ * Odczyty zbiorcze (wartość netto, snapshot()) są spójne per pozycja, nie globalnie.
+ *
+ * Listenery dostają tylko onOrderRejected - z wątku, który wykonywał zlecenie.
+ */
+public class ConcurrentPortfolio {
+    private static final int DEFAULT_STRIPES = 64;
+    private static final PortfolioListener[] NO_LISTENERS = new PortfolioListener[0];
+    private static final Counter ORDERS_REJECTED = MetricsRegistry.global().counter("portfolio.orders.rejected");
+
+    private final AtomicLong cashBits;
+    private final Map<String, Position> positions;
+    private final ReentrantLock[] stripes;
+    private final Set<String> watchlist;
+
+    private final OrderBook pendingOrders;
+    private final ReentrantLock orderLock;
+    private final AtomicLong nextOrderSequence;
+
+    // copy-on-write, zmiany pod this
+    private volatile PortfolioListener[] listeners = NO_LISTENERS;
+
+    public ConcurrentPortfolio(double initialCash) {
+        this(initialCash, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentPortfolio(double initialCash, int stripeCount) {
+        if (initialCash < 0) {
+            throw new IllegalArgumentException("Gotówka początkowa nie może być ujemna");
+        }
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Liczba blokad musi być dodatnia");
+        }
+        this.cashBits = new AtomicLong(Double.doubleToRawLongBits(initialCash));
+        this.positions = new ConcurrentHashMap<>();
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.watchlist = ConcurrentHashMap.newKeySet();
+        this.pendingOrders = new OrderBook();
+        this.orderLock = new ReentrantLock();
+        this.nextOrderSequence = new AtomicLong(1L);
+    }
+
+    public double getCash() {
+        return Double.longBitsToDouble(cashBits.get());
+    }
+
+    public synchronized void addListener(PortfolioListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener nie może być null");
+        }
+        PortfolioListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public synchronized boolean removeListener(PortfolioListener listener) {
+        PortfolioListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                PortfolioListener[] next = new PortfolioListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                listeners = next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double calculateTotalNetWorth() {
+        double sum = getCash();
+        for (Position p : positions.values()) {
+            ReentrantLock lock = stripe(p.getAsset().getTicker());
+            lock.lock();
+            try {
+                sum += p.getRealValue();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return sum;
+    }
+
+    public int getTotalQuantity(String ticker) {
+        if (ticker == null) {
+            return 0;
+        }
+        ReentrantLock lock = stripe(ticker);
+        lock.lock();
+        try {
+            Position p = positions.get(ticker);
+            return p == null ? 0 : p.getTotalQuantity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean addToWatchlist(String ticker) {
+        if (ticker == null || ticker.isBlank()) {
+            throw new IllegalArgumentException("Ticker nie może być pusty");
+        }
+        return watchlist.add(ticker);
+    }
+
+    public boolean removeFromWatchlist(String ticker) {
+        if (ticker == null || ticker.isBlank()) {
+            throw new IllegalArgumentException("Ticker nie może być pusty");
+        }
+        return watchlist.remove(ticker);
+    }
+
+    public long nextOrderSequence() {
+        return nextOrderSequence.getAndIncrement();
+    }
+
+    public void executeBuy(Asset asset, int quantity, LocalDate date) {
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset nie może być null");
+        }
+        executeBuy(asset, quantity, date, Double.NaN);
+    }
+
+    // unitPrice NaN = bieżąca cena aktywa, odczytana pod blokadą tickera
+    private void executeBuy(Asset asset, int quantity, LocalDate date, double unitPrice) {
+        if (date == null) {
+            throw new IllegalArgumentException("Data nie może być null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Ilość musi być dodatnia");
+        }
+
+        ReentrantLock lock = stripe(asset.getTicker());
+        lock.lock();
+        try {
+            double totalCost = asset.calculatePurchaseCost(quantity,
+                    Double.isNaN(unitPrice) ? asset.getMarketPrice() : unitPrice);
+            reserveCash(asset, totalCost);
+            try {
+                Position position = positions.computeIfAbsent(asset.getTicker(), t -> new Position(asset));
+                position.addLot(date, quantity, totalCost / quantity);
+            } catch (RuntimeException e) {
+                addCash(totalCost);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SaleReport executeSell(Asset asset, int quantity, LocalDate date) {
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset nie może być null");
+        }
+        return executeSell(asset, quantity, date, Double.NaN);
+    }
+
+    private SaleReport executeSell(Asset asset, int quantity, LocalDate date, double unitPrice) {
+        if (date == null) {
+            throw new IllegalArgumentException("Data nie może być null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Ilość musi być dodatnia");
+        }
+
+        ReentrantLock lock = stripe(asset.getTicker());
+        lock.lock();
+        try {
+            Position position = positions.get(asset.getTicker());
+            if (position == null || position.getTotalQuantity() <= 0) {
+                throw new InsufficientHoldingsException("Brak pozycji do sprzedaży dla " + asset.getTicker());
+            }
+
+            double totalProceeds = asset.calculateSellProceeds(quantity,
+                    Double.isNaN(unitPrice) ? asset.getMarketPrice() : unitPrice);
+            SaleReport report = position.sellFifo(date, quantity, totalProceeds / quantity);
+            addCash(totalProceeds);
+
+            if (position.getTotalQuantity() == 0) {
+                positions.remove(asset.getTicker());
+            }
+            return report;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void placeOrder(OrderSide side, Asset asset, int quantity, double limitPrice, LocalDate date) {
+        if (side == null) {
+            throw new IllegalArgumentException("Side nie może być null");
+        }
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset nie może być null");
+        }
+        if (date == null) {
+            throw new IllegalArgumentException("Data nie może być null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Ilość musi być dodatnia");
+        }
+        if (limitPrice < 0) {
+            throw new IllegalArgumentException("Limit price nie może być ujemny");
+        }
+
+        Order order = new Order(nextOrderSequence(), side, asset, quantity, limitPrice, asset.getMarketPrice(), date);
+        boolean executable = side == OrderSide.BUY
+                ? limitPrice >= order.getMarketPriceSnapshot()
+                : limitPrice <= order.getMarketPriceSnapshot();
+        orderLock.lock();
+        try {
+            pendingOrders.add(order, executable);
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    public int getPendingOrderCount() {
+        orderLock.lock();
+        try {
+            return pendingOrders.size();
+        } finally {
+            orderLock.unlock();
+        }
+    }
+
+    /**
+     * Zdejmuje najlepsze wykonalne zlecenie pod blokadą księgi, a wykonuje je już pod blokadą tickera.
+     * Cena wykonania to snapshot zlecenia - współdzielone Asset nie jest zmieniane, więc równoległe
+     * wykonania tego samego tickera nie nadpisują sobie ceny. Gdy wykonanie się nie uda (brak
+     * środków/pozycji), zlecenie nie wraca do księgi: listenery dostają onOrderRejected, a wyjątek
+     * leci dalej - jak w Portfolio.processNextExecutableOrder.
+     */
+    public SaleReport processNextExecutableOrder() {
+        Order o;
+        orderLock.lock();
+        try {
+            o = pendingOrders.pollExecutable();
+        } finally {
+            orderLock.unlock();
+        }
+        if (o == null) {
+            return null;
+        }
+
+        try {
+            if (o.getSide() == OrderSide.BUY) {
+                executeBuy(o.getAsset(), o.getQuantity(), o.getDate(), o.getMarketPriceSnapshot());
+                return null;
+            }
+            return executeSell(o.getAsset(), o.getQuantity(), o.getDate(), o.getMarketPriceSnapshot());
+        } catch (InsufficientFundsException | InsufficientHoldingsException e) {
+            ORDERS_REJECTED.increment();
+            for (PortfolioListener l : listeners) {
+                l.onOrderRejected(o, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Kopia stanu jako zwykłe Portfolio (np. do persystencji lub raportu). Blokuje wszystkie
+     * paski na czas kopiowania pozycji.
+     */
+    public Portfolio snapshot() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+        try {
+            Portfolio copy = new Portfolio(getCash());
+            for (Position p : positions.values()) {
+                Position c = new Position(p.getAsset());
+                LotCursor lot = p.lotCursor();
+                while (lot.next()) {
+                    c.addLot(lot.epochDay(), lot.quantity(), lot.unitPrice());
+                }
+                copy.addPositionFromPersistence(c);
+            }
+            for (String ticker : watchlist) {
+                copy.addToWatchlist(ticker);
+            }
+            return copy;
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    public List<String> getWatchlistSnapshot() {
+        return new ArrayList<>(watchlist);
+    }
+
+    private ReentrantLock stripe(String ticker) {
+        int h = ticker.hashCode();
+        h ^= (h >>> 16);
+        return stripes[Math.floorMod(h, stripes.length)];
+    }
+
+    private void reserveCash(Asset asset, double amount) {
+        while (true) {
+            long bits = cashBits.get();
+            double cash = Double.longBitsToDouble(bits);
+            if (cash < amount) {
+                throw new InsufficientFundsException(
+                        "Brak środków na zakup " + asset.getTicker() + ". Koszt: " + amount + ", gotówka: " + cash);
+            }
+            if (cashBits.compareAndSet(bits, Double.doubleToRawLongBits(cash - amount))) {
+                return;
+            }
+        }
+    }
+
+    private void addCash(double amount) {
+        while (true) {
+            long bits = cashBits.get();
+            double next = Double.longBitsToDouble(bits) + amount;
+            if (cashBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.stockmarket.logic;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchiczne koło czasowe terminów wygaśnięcia zleceń, taktowane dniami zegara symulacji.
+ *
+ * LEVELS poziomów po 64 sloty; poziom l rozróżnia 6-bitową grupę l numeru dnia. Wpis trafia na
+ * poziom najstarszej grupy, w której jego termin różni się od "teraz", więc przesunięcie zegara
+ * dotyka tylko slotów, które rzeczywiście mają coś do zrobienia: najbliższy niepusty slot
+ * wyznacza bitmapa poziomu, a wpis schodzi w dół co najwyżej LEVELS razy w całym życiu.
+ * Koszt advanceTo jest więc proporcjonalny do liczby wygasających wpisów (plus stała LEVELS),
+ * a nie do liczby zleceń w księdze.
+ *
+ * Położenie wpisu (poziom, slot) wynika wyłącznie z jego terminu i "teraz": zegar nigdy nie wchodzi
+ * w zakres slotu bez opróżnienia go. Dzięki temu remove liczy kubełek z terminu, a pozycję w kubełku
+ * bierze z indeksu - usunięcie anulowanego/wykonanego zlecenia to O(1).
+ */
+final class ExpiryWheel {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    // 7 * 6 = 42 bity: z przesunięciem BIAS obejmuje cały zakres LocalDate.toEpochDay()
+    private static final int LEVELS = 7;
+    private static final long BIAS = 1L << 39;
+    private static final int INITIAL_BUCKET = 4;
+
+    private final long[][] ids = new long[LEVELS * SLOTS][];
+    private final long[][] deadlines = new long[LEVELS * SLOTS][];
+    private final int[] counts = new int[LEVELS * SLOTS];
+    // id zlecenia -> pozycja w jego kubełku
+    private final Map<Long, Integer> positions = new HashMap<>();
+    // bit s = slot s poziomu niepusty
+    private final long[] occupied = new long[LEVELS];
+
+    // bieżący dzień (z przesunięciem); wszystkie wpisy mają termin > now
+    private long now;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Rejestruje wygaśnięcie zlecenia z początkiem dnia deadline.
+     *
+     * @return false, jeśli termin nie jest późniejszy niż bieżący dzień (nic nie zapisano)
+     */
+    boolean schedule(long orderId, LocalDate deadline) {
+        long tick = deadline.toEpochDay() + BIAS;
+        if (tick <= now) {
+            return false;
+        }
+        if (positions.containsKey(orderId)) {
+            throw new IllegalArgumentException("Zlecenie już zaplanowane: " + orderId);
+        }
+        insert(orderId, tick);
+        size++;
+        return true;
+    }
+
+    /**
+     * Usuwa wpis zlecenia zaplanowany z terminem deadline.
+     *
+     * @return false, jeśli takiego wpisu nie ma (już odpalony albo nigdy nie zaplanowany)
+     */
+    boolean remove(long orderId, LocalDate deadline) {
+        long tick = deadline.toEpochDay() + BIAS;
+        Integer pos = positions.get(orderId);
+        if (pos == null || tick <= now) {
+            return false;
+        }
+        int level = levelOf(tick);
+        int slot = slotOf(tick, level);
+        int b = level * SLOTS + slot;
+        int i = pos;
+        if (i >= counts[b] || ids[b][i] != orderId) {
+            return false;
+        }
+        int last = counts[b] - 1;
+        if (i != last) {
+            ids[b][i] = ids[b][last];
+            deadlines[b][i] = deadlines[b][last];
+            positions.put(ids[b][i], i);
+        }
+        counts[b] = last;
+        if (last == 0) {
+            occupied[level] &= ~(1L << slot);
+        }
+        positions.remove(orderId);
+        size--;
+        return true;
+    }
+
+    /**
+     * Przesuwa zegar do dnia day i przekazuje identyfikatory wszystkich wpisów z terminem <= day.
+     * Cofnięcie zegara nic nie robi.
+     */
+    void advanceTo(LocalDate day, LongConsumer expired) {
+        long target = day.toEpochDay() + BIAS;
+        while (true) {
+            int level = 0;
+            while (level < LEVELS && occupied[level] == 0) {
+                level++;
+            }
+            if (level == LEVELS) {
+                break;
+            }
+            int slot = Long.numberOfTrailingZeros(occupied[level]);
+            int shift = BITS * level;
+            long upper = now & -(1L << (shift + BITS));
+            long slotStart = upper | ((long) slot << shift);
+            if (slotStart > target) {
+                break;
+            }
+            now = slotStart;
+            drain(level, slot, expired);
+        }
+        if (target > now) {
+            now = target;
+        }
+    }
+
+    private void drain(int level, int slot, LongConsumer expired) {
+        int b = level * SLOTS + slot;
+        long[] bucketIds = ids[b];
+        long[] bucketDeadlines = deadlines[b];
+        int n = counts[b];
+        counts[b] = 0;
+        occupied[level] &= ~(1L << slot);
+        // ponowne wstawienia trafiają na niższe poziomy, więc tablice kubełka nie są nadpisywane
+        for (int i = 0; i < n; i++) {
+            long tick = bucketDeadlines[i];
+            positions.remove(bucketIds[i]);
+            if (tick <= now) {
+                size--;
+                expired.accept(bucketIds[i]);
+            } else {
+                insert(bucketIds[i], tick);
+            }
+        }
+    }
+
+    private int levelOf(long tick) {
+        return (63 - Long.numberOfLeadingZeros(tick ^ now)) / BITS;
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) (tick >>> (BITS * level)) & (SLOTS - 1);
+    }
+
+    private void insert(long orderId, long tick) {
+        int level = levelOf(tick);
+        int slot = slotOf(tick, level);
+        int b = level * SLOTS + slot;
+        int n = counts[b];
+        if (ids[b] == null) {
+            ids[b] = new long[INITIAL_BUCKET];
+            deadlines[b] = new long[INITIAL_BUCKET];
+        } else if (n == ids[b].length) {
+            ids[b] = Arrays.copyOf(ids[b], n * 2);
+            deadlines[b] = Arrays.copyOf(deadlines[b], n * 2);
+        }
+        ids[b][n] = orderId;
+        deadlines[b][n] = tick;
+        counts[b] = n + 1;
+        occupied[level] |= 1L << slot;
+        positions.put(orderId, n);
+    }
+}
@@ -0,0 +1,193 @@
+package com.stockmarket.logic;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Mapa identyfikator aktywa -> pozycja bez boxingu kluczy.
+ *
+ * Adresowanie otwarte z sondowaniem liniowym; pusty slot to values[i] == null.
+ * Usuwanie przez przesunięcie wstecz (bez znaczników "tombstone").
+ */
+final class IntPositionMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private Position[] values;
+    private int mask;
+    private int shift;
+    private int size;
+
+    // licznik zmian zestawu kluczy dla iteratorów fail-fast
+    private int modCount;
+
+    private final Collection<Position> valuesView = new Values();
+
+    IntPositionMap() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.values = new Position[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    Position get(int key) {
+        int i = slot(key);
+        Position v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    Position put(int key, Position value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value nie może być null");
+        }
+        int i = slot(key);
+        Position v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        modCount++;
+        // współczynnik wypełnienia <= 1/2
+        if (size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+        return null;
+    }
+
+    Position remove(int key) {
+        int i = slot(key);
+        Position v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                deleteAt(i);
+                size--;
+                modCount++;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Żywy widok wartości; iterator fail-fast, bez usuwania.
+     */
+    Collection<Position> values() {
+        return valuesView;
+    }
+
+    private void deleteAt(int hole) {
+        values[hole] = null;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                return;
+            }
+            int home = slot(keys[j]);
+            // element zostaje, jeśli jego slot docelowy leży cyklicznie w (hole, j]
+            boolean stays = hole <= j
+                    ? hole < home && home <= j
+                    : hole < home || home <= j;
+            if (!stays) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                values[j] = null;
+                hole = j;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Position[] oldValues = values;
+        keys = new int[capacity];
+        values = new Position[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(int key) {
+        // mieszanie Fibonacciego - gęste identyfikatory nie układają się w klastry
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private final class Values extends AbstractCollection<Position> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Position> iterator() {
+            return new Iterator<>() {
+                private final int expectedModCount = modCount;
+                private int index = advance(0);
+
+                @Override
+                public boolean hasNext() {
+                    return index < values.length;
+                }
+
+                @Override
+                public Position next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (index >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+                    Position p = values[index];
+                    index = advance(index + 1);
+                    return p;
+                }
+
+                private int advance(int from) {
+                    Position[] v = values;
+                    int i = from;
+                    while (i < v.length && v[i] == null) {
+                        i++;
+                    }
+                    return i;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.stockmarket.logic;
+
+/**
+ * Odbiorca pojedynczych zdjęć partii podczas sprzedaży FIFO (same prymitywy, bez alokacji).
+ */
+@FunctionalInterface
+public interface LotConsumer {
+    void accept(int lotEpochDay, int quantity, double buyUnitPrice, double profitAndLoss);
+}
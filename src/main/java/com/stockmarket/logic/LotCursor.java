@@ -0,0 +1,59 @@
+package com.stockmarket.logic;
+
+import java.time.LocalDate;
+import java.util.ConcurrentModificationException;
+
+/**
+ * Kursor tylko do odczytu po partiach pozycji (od najstarszej), bez kopiowania.
+ * Fail-fast: zmiana partii po utworzeniu kursora kończy się ConcurrentModificationException.
+ *
+ * <pre>
+ * LotCursor c = position.lotCursor();
+ * while (c.next()) { c.quantity(); ... }
+ * </pre>
+ */
+public final class LotCursor {
+    private final LotStore store;
+    private final int expectedModCount;
+    private int index = -1;
+
+    LotCursor(LotStore store) {
+        this.store = store;
+        this.expectedModCount = store.modCount;
+    }
+
+    public boolean next() {
+        checkForModification();
+        if (index + 1 >= store.size()) {
+            index = store.size();
+            return false;
+        }
+        index++;
+        return true;
+    }
+
+    public int epochDay() {
+        checkForModification();
+        return store.epochDayAt(index);
+    }
+
+    public LocalDate purchaseDate() {
+        return LocalDate.ofEpochDay(epochDay());
+    }
+
+    public int quantity() {
+        checkForModification();
+        return store.quantityAt(index);
+    }
+
+    public double unitPrice() {
+        checkForModification();
+        return store.unitCostAt(index);
+    }
+
+    private void checkForModification() {
+        if (store.modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
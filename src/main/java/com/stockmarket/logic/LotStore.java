@@ -0,0 +1,125 @@
+package com.stockmarket.logic;
+
+/**
+ * Kolumnowy magazyn partii zakupowych pozycji.
+ *
+ * Równoległe tablice prymitywów (dzień epoki, ilość, koszt jednostkowy) używane jako bufor
+ * cykliczny: dokładanie na koniec, zdejmowanie z początku (FIFO). Żadnego obiektu na partię.
+ */
+final class LotStore {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] epochDays;
+    private int[] quantities;
+    private double[] unitCosts;
+
+    private int head;
+    private int size;
+
+    // licznik modyfikacji dla kursorów fail-fast
+    int modCount;
+
+    LotStore() {
+        this.epochDays = new int[INITIAL_CAPACITY];
+        this.quantities = new int[INITIAL_CAPACITY];
+        this.unitCosts = new double[INITIAL_CAPACITY];
+    }
+
+    void addLast(int epochDay, int quantity, double unitCost) {
+        if (size == epochDays.length) {
+            grow();
+        }
+        int idx = (head + size) & (epochDays.length - 1);
+        epochDays[idx] = epochDay;
+        quantities[idx] = quantity;
+        unitCosts[idx] = unitCost;
+        size++;
+        modCount++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // i = pozycja licząc od najstarszej partii
+    int epochDayAt(int i) {
+        return epochDays[slot(i)];
+    }
+
+    int quantityAt(int i) {
+        return quantities[slot(i)];
+    }
+
+    double unitCostAt(int i) {
+        return unitCosts[slot(i)];
+    }
+
+    int firstEpochDay() {
+        return epochDays[head];
+    }
+
+    int firstQuantity() {
+        return quantities[head];
+    }
+
+    double firstUnitCost() {
+        return unitCosts[head];
+    }
+
+    /**
+     * Zmniejsza najstarszą partię; partia wyzerowana jest zdejmowana z bufora.
+     */
+    void reduceFirst(int amount) {
+        modCount++;
+        int left = quantities[head] - amount;
+        if (left > 0) {
+            quantities[head] = left;
+            return;
+        }
+        head = (head + 1) & (epochDays.length - 1);
+        size--;
+        if (size == 0) {
+            head = 0;
+        }
+    }
+
+    private int slot(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("lot index " + i + ", size " + size);
+        }
+        return (head + i) & (epochDays.length - 1);
+    }
+
+    // pojemność zawsze jest potęgą dwójki - indeks liczony maską
+    private void grow() {
+        int capacity = epochDays.length;
+        int newCapacity = capacity << 1;
+        if (newCapacity <= 0) {
+            throw new IllegalStateException("Przekroczona maksymalna liczba partii");
+        }
+        epochDays = unwrap(epochDays, newCapacity);
+        quantities = unwrap(quantities, newCapacity);
+        unitCosts = unwrap(unitCosts, newCapacity);
+        head = 0;
+    }
+
+    private int[] unwrap(int[] src, int newCapacity) {
+        int[] dst = new int[newCapacity];
+        int firstPart = Math.min(size, src.length - head);
+        System.arraycopy(src, head, dst, 0, firstPart);
+        System.arraycopy(src, 0, dst, firstPart, size - firstPart);
+        return dst;
+    }
+
+    private double[] unwrap(double[] src, int newCapacity) {
+        double[] dst = new double[newCapacity];
+        int firstPart = Math.min(size, src.length - head);
+        System.arraycopy(src, head, dst, 0, firstPart);
+        System.arraycopy(src, 0, dst, firstPart, size - firstPart);
+        return dst;
+    }
+}
@@ -4,6 +4,8 @@ import com.stockmarket.domain.Asset;
 import java.time.LocalDate;
 
 public class Order {
+    // stały identyfikator zlecenia (sekwencja z chwili złożenia); sekwencja = miejsce w kolejce
+    private final long id;
     private final long sequence;
     private final OrderSide side;
     private final Asset asset;
@@ -11,16 +13,44 @@ public class Order {
     private final double limitPrice;
     private final double marketPriceSnapshot;
     private final LocalDate date;
+    private final TimeInForce timeInForce;
+    // ostatni dzień ważności (DAY: dzień złożenia, GTD: wskazany); null dla GTC i IOC
+    private final LocalDate expiryDate;
 
     public Order(long sequence, OrderSide side, Asset asset, int quantity,
                  double limitPrice, double marketPriceSnapshot, LocalDate date) {
+        this(sequence, sequence, side, asset, quantity, limitPrice, marketPriceSnapshot, date);
+    }
+
+    public Order(long id, long sequence, OrderSide side, Asset asset, int quantity,
+                 double limitPrice, double marketPriceSnapshot, LocalDate date) {
+        this(id, sequence, side, asset, quantity, limitPrice, marketPriceSnapshot, date, TimeInForce.GTC, null);
+    }
+
+    /**
+     * @param expiryDate wymagana dla GTD (nie wcześniej niż date), dla DAY null albo równa date,
+     *                   dla GTC i IOC null
+     */
+    public Order(long id, long sequence, OrderSide side, Asset asset, int quantity,
+                 double limitPrice, double marketPriceSnapshot, LocalDate date,
+                 TimeInForce timeInForce, LocalDate expiryDate) {
 
         require(side != null, "side null");
         require(asset != null, "asset null");
         require(date != null, "date null");
         require(quantity > 0, "qty <= 0");
         require(limitPrice >= 0 && marketPriceSnapshot >= 0, "price < 0");
+        require(timeInForce != null, "tif null");
+        if (timeInForce == TimeInForce.GTD) {
+            require(expiryDate != null && !expiryDate.isBefore(date), "bad expiry");
+        } else if (timeInForce == TimeInForce.DAY) {
+            require(expiryDate == null || expiryDate.equals(date), "bad expiry");
+            expiryDate = date;
+        } else {
+            require(expiryDate == null, "bad expiry");
+        }
 
+        this.id = id;
         this.sequence = sequence;
         this.side = side;
         this.asset = asset;
@@ -28,12 +58,15 @@ public class Order {
         this.limitPrice = limitPrice;
         this.marketPriceSnapshot = marketPriceSnapshot;
         this.date = date;
+        this.timeInForce = timeInForce;
+        this.expiryDate = expiryDate;
     }
 
     private static void require(boolean ok, String msg) {
         if (!ok) throw new IllegalArgumentException(msg);
     }
 
+    public long getId() { return id; }
     public long getSequence() { return sequence; }
     public OrderSide getSide() { return side; }
     public Asset getAsset() { return asset; }
@@ -41,4 +74,21 @@ public class Order {
     public double getLimitPrice() { return limitPrice; }
     public double getMarketPriceSnapshot() { return marketPriceSnapshot; }
     public LocalDate getDate() { return date; }
+    public TimeInForce getTimeInForce() { return timeInForce; }
+    public LocalDate getExpiryDate() { return expiryDate; }
+
+    /**
+     * Kopia zlecenia (ta sama sekwencja, więc ten sam priorytet) z nowym snapshotem ceny rynkowej.
+     */
+    public Order withMarketPriceSnapshot(double newSnapshot) {
+        return new Order(id, sequence, side, asset, quantity, limitPrice, newSnapshot, date, timeInForce, expiryDate);
+    }
+
+    /**
+     * Kopia z nową ilością - ta sama sekwencja, więc zlecenie zachowuje miejsce w kolejce.
+     */
+    public Order withQuantity(int newQuantity) {
+        return new Order(id, sequence, side, asset, newQuantity, limitPrice, marketPriceSnapshot, date,
+                timeInForce, expiryDate);
+    }
 }
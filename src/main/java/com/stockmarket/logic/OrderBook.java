@@ -0,0 +1,327 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Księga zleceń oczekujących indeksowana po tickerze.
+ *
+ * Dla każdego tickera i strony trzymane są posortowane poziomy cenowe, osobno dla zleceń
+ * wykonalnych i spoczywających (niewykonalnych). Najlepsze zlecenie każdej takiej strony trafia
+ * do globalnego zbioru "głów" uporządkowanego wg OrderAttractivenessComparator, więc następne
+ * wykonalne zlecenie to odczyt najlepszego poziomu, a nie skanowanie całej kolejki.
+ *
+ * Indeks identyfikator -> uchwyt (zlecenie + strona wykonalna/spoczywająca) pozwala anulować
+ * i zmieniać zlecenia po id w O(log n).
+ */
+public class OrderBook {
+    private static final Comparator<Order> PRIORITY = new OrderAttractivenessComparator();
+
+    private final Map<String, TickerBook> books;
+    private final Map<Long, Handle> handles;
+
+    // po jednej głowie na (ticker, strona) - priorytet między tickerami
+    private final NavigableSet<Order> executableHeads;
+    private final NavigableSet<Order> restingHeads;
+
+    private int size;
+    private int executableCount;
+
+    public OrderBook() {
+        this.books = new HashMap<>();
+        this.handles = new HashMap<>();
+        this.executableHeads = new TreeSet<>(PRIORITY);
+        this.restingHeads = new TreeSet<>(PRIORITY);
+    }
+
+    public void add(Order order, boolean executable) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null");
+        }
+        if (handles.containsKey(order.getId())) {
+            throw new IllegalArgumentException("Duplikat identyfikatora zlecenia: " + order.getId());
+        }
+        TickerBook book = books.computeIfAbsent(order.getAsset().getTicker(), t -> new TickerBook());
+        PriceLevels levels = book.levels(order.getSide(), executable);
+        handles.put(order.getId(), new Handle(order, executable));
+
+        Order before = levels.first();
+        levels.add(order);
+        replaceHead(executable ? executableHeads : restingHeads, before, levels.first());
+
+        size++;
+        if (executable) {
+            executableCount++;
+        }
+    }
+
+    /**
+     * Najatrakcyjniejsze zlecenie w całej księdze (wykonalne lub nie).
+     */
+    public Order peek() {
+        Order executable = executableHeads.isEmpty() ? null : executableHeads.first();
+        Order resting = restingHeads.isEmpty() ? null : restingHeads.first();
+        if (executable == null) {
+            return resting;
+        }
+        if (resting == null) {
+            return executable;
+        }
+        return PRIORITY.compare(executable, resting) <= 0 ? executable : resting;
+    }
+
+    public Order peekExecutable() {
+        return executableHeads.isEmpty() ? null : executableHeads.first();
+    }
+
+    public Order pollExecutable() {
+        Order head = executableHeads.pollFirst();
+        if (head == null) {
+            return null;
+        }
+        String ticker = head.getAsset().getTicker();
+        TickerBook book = books.get(ticker);
+        PriceLevels levels = book.levels(head.getSide(), true);
+        levels.pollFirst();
+        handles.remove(head.getId());
+
+        Order next = levels.first();
+        if (next != null) {
+            executableHeads.add(next);
+        }
+
+        size--;
+        executableCount--;
+        if (book.isEmpty()) {
+            books.remove(ticker);
+        }
+        return head;
+    }
+
+    /**
+     * Przenosi do wykonalnych wszystkie spoczywające zlecenia tickera, których limit przekroczyła
+     * nowa cena. Idzie od najlepszego poziomu i zatrzymuje się na pierwszym nieprzekroczonym,
+     * więc koszt zależy od liczby aktywowanych zleceń, a nie od rozmiaru księgi.
+     * Aktywowane zlecenie dostaje nowy snapshot ceny, ale zachowuje swoją sekwencję.
+     *
+     * @return liczba aktywowanych zleceń
+     */
+    public int activate(String ticker, double marketPrice) {
+        TickerBook book = ticker == null ? null : books.get(ticker);
+        if (book == null) {
+            return 0;
+        }
+        return activateSide(book, OrderSide.BUY, marketPrice) + activateSide(book, OrderSide.SELL, marketPrice);
+    }
+
+    private int activateSide(TickerBook book, OrderSide side, double marketPrice) {
+        PriceLevels resting = book.levels(side, false);
+        if (!resting.isFirstCrossedBy(marketPrice)) {
+            return 0;
+        }
+        PriceLevels executable = book.levels(side, true);
+        Order restingBefore = resting.first();
+        Order executableBefore = executable.first();
+
+        int activated = 0;
+        while (resting.isFirstCrossedBy(marketPrice)) {
+            Order moved = resting.pollFirst().withMarketPriceSnapshot(marketPrice);
+            executable.add(moved);
+            Handle h = handles.get(moved.getId());
+            h.order = moved;
+            h.executable = true;
+            activated++;
+        }
+
+        replaceHead(restingHeads, restingBefore, resting.first());
+        replaceHead(executableHeads, executableBefore, executable.first());
+        executableCount += activated;
+        return activated;
+    }
+
+    public Order get(long id) {
+        Handle h = handles.get(id);
+        return h == null ? null : h.order;
+    }
+
+    public boolean isExecutable(long id) {
+        Handle h = handles.get(id);
+        return h != null && h.executable;
+    }
+
+    /**
+     * Zdejmuje zlecenie o danym id z księgi (O(log n)).
+     *
+     * @return zdjęte zlecenie albo null, jeśli takiego nie ma
+     */
+    public Order remove(long id) {
+        Handle h = handles.remove(id);
+        if (h == null) {
+            return null;
+        }
+        Order order = h.order;
+        String ticker = order.getAsset().getTicker();
+        TickerBook book = books.get(ticker);
+        PriceLevels levels = book.levels(order.getSide(), h.executable);
+
+        Order before = levels.first();
+        levels.remove(order);
+        replaceHead(h.executable ? executableHeads : restingHeads, before, levels.first());
+
+        size--;
+        if (h.executable) {
+            executableCount--;
+        }
+        if (book.isEmpty()) {
+            books.remove(ticker);
+        }
+        return order;
+    }
+
+    /**
+     * Zmienia ilość zlecenia bez utraty miejsca w kolejce (ta sama cena i sekwencja).
+     *
+     * @return zlecenie po zmianie albo null, jeśli takiego nie ma
+     */
+    public Order replaceQuantity(long id, int quantity) {
+        Handle h = handles.get(id);
+        if (h == null) {
+            return null;
+        }
+        Order current = h.order;
+        Order updated = current.withQuantity(quantity);
+        PriceLevels levels = books.get(current.getAsset().getTicker()).levels(current.getSide(), h.executable);
+
+        Order before = levels.first();
+        levels.replace(current, updated);
+        // głowa w zbiorze głów to obiekt sprzed zmiany - podmieniamy go
+        replaceHead(h.executable ? executableHeads : restingHeads, before, levels.first());
+        h.order = updated;
+        return updated;
+    }
+
+    /**
+     * Aktywa, dla których w księdze są zlecenia spoczywające (po jednym obiekcie na ticker).
+     */
+    public List<Asset> restingAssets() {
+        List<Asset> assets = new ArrayList<>();
+        for (TickerBook book : books.values()) {
+            Order head = book.firstResting();
+            if (head != null) {
+                assets.add(head.getAsset());
+            }
+        }
+        return assets;
+    }
+
+    /**
+     * Czy dla tickera są w księdze zlecenia spoczywające (czekające na aktywację ceną).
+     */
+    public boolean hasResting(String ticker) {
+        TickerBook book = ticker == null ? null : books.get(ticker);
+        return book != null && book.firstResting() != null;
+    }
+
+    /**
+     * Kopia wszystkich zleceń z księgi (bez gwarantowanej kolejności).
+     */
+    public List<Order> ordersSnapshot() {
+        List<Order> orders = new ArrayList<>(size);
+        for (TickerBook book : books.values()) {
+            for (PriceLevels levels : book.executable) {
+                levels.forEach(orders::add);
+            }
+            for (PriceLevels levels : book.resting) {
+                levels.forEach(orders::add);
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Najlepsze zlecenie danej strony dla tickera (wykonalne lub nie), albo null.
+     */
+    public Order peek(String ticker, OrderSide side) {
+        TickerBook book = ticker == null ? null : books.get(ticker);
+        if (book == null || side == null) {
+            return null;
+        }
+        Order executable = book.levels(side, true).first();
+        Order resting = book.levels(side, false).first();
+        if (executable == null) {
+            return resting;
+        }
+        if (resting == null) {
+            return executable;
+        }
+        return PRIORITY.compare(executable, resting) <= 0 ? executable : resting;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int executableCount() {
+        return executableCount;
+    }
+
+    public int restingCount() {
+        return size - executableCount;
+    }
+
+    private static void replaceHead(NavigableSet<Order> heads, Order before, Order after) {
+        if (before == after) {
+            return;
+        }
+        if (before != null) {
+            heads.remove(before);
+        }
+        if (after != null) {
+            heads.add(after);
+        }
+    }
+
+    private static final class Handle {
+        private Order order;
+        private boolean executable;
+
+        Handle(Order order, boolean executable) {
+            this.order = order;
+            this.executable = executable;
+        }
+    }
+
+    private static final class TickerBook {
+        private final PriceLevels[] executable = {
+                new PriceLevels(OrderSide.BUY), new PriceLevels(OrderSide.SELL)
+        };
+        private final PriceLevels[] resting = {
+                new PriceLevels(OrderSide.BUY), new PriceLevels(OrderSide.SELL)
+        };
+
+        PriceLevels levels(OrderSide side, boolean isExecutable) {
+            return isExecutable ? executable[side.ordinal()] : resting[side.ordinal()];
+        }
+
+        Order firstResting() {
+            Order buy = resting[0].first();
+            return buy != null ? buy : resting[1].first();
+        }
+
+        boolean isEmpty() {
+            return executable[0].isEmpty() && executable[1].isEmpty()
+                    && resting[0].isEmpty() && resting[1].isEmpty();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.PriceListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Aktywuje spoczywające zlecenia po zmianie ceny aktywa.
+ *
+ * Silnik subskrybuje zmiany ceny aktywów, na które są zlecenia w księdze, i przy każdym ticku
+ * przenosi do wykonalnych tylko te zlecenia, których limit przekroczyła nowa cena
+ * (patrz OrderBook.activate). Samego wykonania nie robi - to zostaje w Portfolio.
+ * Aktywo przestaje być obserwowane, gdy z księgi zniknie jego ostatnie zlecenie spoczywające.
+ */
+public class OrderTriggerEngine implements PriceListener {
+    private final OrderBook book;
+    private final Set<Asset> watched;
+    private long activatedCount;
+
+    public OrderTriggerEngine(OrderBook book) {
+        if (book == null) {
+            throw new IllegalArgumentException("OrderBook nie może być null");
+        }
+        this.book = book;
+        this.watched = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    public void watch(Asset asset) {
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset nie może być null");
+        }
+        if (watched.add(asset)) {
+            asset.addPriceListener(this);
+        }
+    }
+
+    /**
+     * Przestaje obserwować aktywo, jeśli nie ma już dla niego zleceń spoczywających.
+     */
+    public void release(Asset asset) {
+        if (asset != null && !book.hasResting(asset.getTicker()) && watched.remove(asset)) {
+            asset.removePriceListener(this);
+        }
+    }
+
+    public boolean isWatching(Asset asset) {
+        return watched.contains(asset);
+    }
+
+    public void unwatchAll() {
+        List<Asset> assets = new ArrayList<>(watched);
+        watched.clear();
+        for (Asset a : assets) {
+            a.removePriceListener(this);
+        }
+    }
+
+    public long getActivatedCount() {
+        return activatedCount;
+    }
+
+    @Override
+    public void onPriceChanged(Asset asset, double oldPrice, double newPrice) {
+        int activated = book.activate(asset.getTicker(), newPrice);
+        if (activated > 0) {
+            activatedCount += activated;
+            // Asset iteruje po kopii tablicy listenerów - usunięcie w trakcie powiadamiania jest bezpieczne
+            release(asset);
+        }
+    }
+}
@@ -1,40 +1,89 @@
 package com.stockmarket.logic;
 
 import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetRegistry;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
 import com.stockmarket.logic.exceptions.InsufficientFundsException;
 import com.stockmarket.logic.exceptions.InsufficientHoldingsException;
+import com.stockmarket.logic.metrics.Counter;
+import com.stockmarket.logic.metrics.Histogram;
+import com.stockmarket.logic.metrics.MetricsRegistry;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
 
 public class Portfolio {
+    // tolerancja względna przy weryfikacji sum bieżących z przeliczeniem od zera
+    private static final double WORTH_TOLERANCE = 1e-9;
+    private static final PortfolioListener[] NO_LISTENERS = new PortfolioListener[0];
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+    private static final Counter ORDERS_PLACED = METRICS.counter("portfolio.orders.placed");
+    private static final Counter ORDERS_EXECUTED = METRICS.counter("portfolio.orders.executed");
+    private static final Counter ORDERS_CANCELLED = METRICS.counter("portfolio.orders.cancelled");
+    private static final Counter ORDERS_AMENDED = METRICS.counter("portfolio.orders.amended");
+    private static final Counter ORDERS_EXPIRED = METRICS.counter("portfolio.orders.expired");
+    private static final Counter ORDERS_REJECTED = METRICS.counter("portfolio.orders.rejected");
+    // wywołania processNextExecutableOrder bez wykonalnego zlecenia
+    private static final Counter PROCESS_IDLE = METRICS.counter("portfolio.orders.process.idle");
+    // głębokość księgi po każdej zmianie - histogram, bo metryki są wspólne dla wszystkich portfeli
+    // w procesie, a gauge pokazywałby tylko ostatni zapisujący portfel
+    private static final Histogram BOOK_DEPTH = METRICS.histogram("portfolio.book.depth");
+    private static final Histogram BOOK_EXECUTABLE = METRICS.histogram("portfolio.book.executable");
+
     private double cash;
 
-    // O(1) dostęp po tickerze
-    private final Map<String, Position> positions;
+    // O(1) dostęp po identyfikatorze aktywa (AssetRegistry), bez hashowania tickera
+    private final IntPositionMap positions;
 
     // gwarancja unikalności
     private final Set<String> watchlist;
 
-    // kolejka zleceń (priorytet "atrakcyjności")
-    private final PriorityQueue<Order> pendingOrders;
+    // widoki tylko do odczytu na żywe kolekcje (bez kopiowania, iteratory fail-fast)
+    private final Collection<Position> positionsView;
+    private final Set<String> watchlistView;
+
+    // księga zleceń (poziomy cenowe per ticker, priorytet "atrakcyjności")
+    private final OrderBook pendingOrders;
 
     private long nextOrderSequence;
 
+    // zegar symulacji (null = jeszcze nie ustawiony) i terminy wygaśnięcia zleceń DAY/GTD
+    private LocalDate currentDate;
+    private final ExpiryWheel expiries = new ExpiryWheel();
+
+    // wersja modyfikacji: rośnie przy każdej zmianie stanu widocznej w raportach/wycenach
+    private long version;
+
+    // sumy bieżące wartości pozycji (bez gotówki), aktualizowane deltami; zmiany cen wykrywane
+    // przy odczycie po Asset.getPriceVersion() - portfel nie rejestruje się na współdzielonych Asset
+    private double positionsMarketWorth;
+    private double positionsNetWorth;
+    private boolean worthVerification;
+
+    // copy-on-write, jak w Asset
+    private PortfolioListener[] listeners = NO_LISTENERS;
+
+    // null = zlecenia nie reagują na zmiany cen (snapshot z chwili złożenia)
+    private OrderTriggerEngine triggerEngine;
+
     public Portfolio(double initialCash) {
         if (initialCash < 0) {
             throw new IllegalArgumentException("Gotówka początkowa nie może być ujemna");
         }
         this.cash = initialCash;
-        this.positions = new HashMap<>();
+        this.positions = new IntPositionMap();
         this.watchlist = new HashSet<>();
-        this.pendingOrders = new PriorityQueue<>(new OrderAttractivenessComparator());
+        this.positionsView = Collections.unmodifiableCollection(positions.values());
+        this.watchlistView = Collections.unmodifiableSet(watchlist);
+        this.pendingOrders = new OrderBook();
         this.nextOrderSequence = 1L;
     }
 
@@ -42,7 +91,66 @@ public class Portfolio {
         return cash;
     }
 
+    /**
+     * Monotonicznie rosnąca wersja stanu portfela. Zmieniają ją kupno, sprzedaż, złożenie
+     * i realizacja zleceń, zmiany watchlisty, wczytanie pozycji, resyncWorth oraz zmiana ceny
+     * trzymanego aktywa (wykrywana przy odczycie wersji). Ta sama wersja = ten sam raport i ta sama wycena.
+     */
+    public long getVersion() {
+        revalueChangedPrices();
+        return version;
+    }
+
+    public void addListener(PortfolioListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener nie może być null");
+        }
+        PortfolioListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public boolean removeListener(PortfolioListener listener) {
+        PortfolioListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                PortfolioListener[] next = new PortfolioListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                listeners = next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wartość netto (gotówka + wartość realna pozycji) z sum bieżących. Przeliczane są tylko pozycje,
+     * których cena zmieniła się od ostatniego odczytu (porównanie wersji ceny, bez wyceny pozostałych).
+     * W trybie weryfikacji wynik jest dodatkowo porównywany z przeliczeniem od zera.
+     */
     public double calculateTotalNetWorth() {
+        revalueChangedPrices();
+        double sum = cash + positionsNetWorth;
+        if (worthVerification) {
+            verifyWorth("net worth", sum, recalculateTotalNetWorth());
+        }
+        return sum;
+    }
+
+    public double calculateTotalMarketWorth() {
+        revalueChangedPrices();
+        double sum = cash + positionsMarketWorth;
+        if (worthVerification) {
+            verifyWorth("market worth", sum, recalculateTotalMarketWorth());
+        }
+        return sum;
+    }
+
+    /**
+     * Przeliczenie wartości netto od zera (przejście po wszystkich pozycjach).
+     */
+    public double recalculateTotalNetWorth() {
         double sum = cash;
         for (Position p : positions.values()) {
             sum += p.getRealValue();
@@ -50,7 +158,7 @@ public class Portfolio {
         return sum;
     }
 
-    public double calculateTotalMarketWorth() {
+    public double recalculateTotalMarketWorth() {
         double sum = cash;
         for (Position p : positions.values()) {
             sum += p.getMarketValue();
@@ -58,22 +166,123 @@ public class Portfolio {
         return sum;
     }
 
+    /**
+     * Tryb weryfikacji: każdy odczyt sum bieżących jest sprawdzany z przeliczeniem od zera,
+     * rozbieżność kończy się DataIntegrityException.
+     */
+    public void setWorthVerification(boolean enabled) {
+        this.worthVerification = enabled;
+    }
+
+    public boolean isWorthVerification() {
+        return worthVerification;
+    }
+
+    /**
+     * Odbudowuje sumy bieżące od zera (np. po zmianach pozycji z pominięciem Portfolio).
+     */
+    public void resyncWorth() {
+        version++;
+        positionsMarketWorth = 0;
+        positionsNetWorth = 0;
+        for (Position p : positions.values()) {
+            p.trackedPriceVersion = p.getAsset().getPriceVersion();
+            p.trackedMarketValue = p.getMarketValue();
+            p.trackedRealValue = p.getRealValue();
+            positionsMarketWorth += p.trackedMarketValue;
+            positionsNetWorth += p.trackedRealValue;
+        }
+    }
+
+    private static void verifyWorth(String what, double running, double recalculated) {
+        double scale = Math.max(1.0, Math.abs(recalculated));
+        if (Math.abs(running - recalculated) > WORTH_TOLERANCE * scale) {
+            throw new DataIntegrityException("Rozbieżność sumy bieżącej (" + what + "): bieżąca="
+                    + running + ", przeliczona=" + recalculated);
+        }
+    }
+
+    private void track(Position position) {
+        position.trackedMarketValue = 0;
+        position.trackedRealValue = 0;
+        refreshWorth(position);
+    }
+
+    private void untrack(Position position) {
+        if (positions.isEmpty()) {
+            // brak pozycji - zerujemy, żeby nie przenosić dryfu zmiennoprzecinkowego
+            positionsMarketWorth = 0;
+            positionsNetWorth = 0;
+        } else {
+            positionsMarketWorth -= position.trackedMarketValue;
+            positionsNetWorth -= position.trackedRealValue;
+        }
+        position.trackedMarketValue = 0;
+        position.trackedRealValue = 0;
+    }
+
+    private void refreshWorth(Position position) {
+        // wersja przed ceną: równoległa zmiana ceny najwyżej wymusi ponowne przeliczenie
+        position.trackedPriceVersion = position.getAsset().getPriceVersion();
+        double market = position.getMarketValue();
+        double real = position.getRealValue();
+        positionsMarketWorth += market - position.trackedMarketValue;
+        positionsNetWorth += real - position.trackedRealValue;
+        position.trackedMarketValue = market;
+        position.trackedRealValue = real;
+    }
+
+    // O(liczba pozycji) porównań wersji; wyceniane są tylko pozycje ze zmienioną ceną
+    private void revalueChangedPrices() {
+        boolean changed = false;
+        for (Position p : positions.values()) {
+            if (p.trackedPriceVersion != p.getAsset().getPriceVersion()) {
+                refreshWorth(p);
+                changed = true;
+            }
+        }
+        if (changed) {
+            version++;
+        }
+    }
+
     public Set<String> getWatchlistSnapshot() {
         return new HashSet<>(watchlist);
     }
 
+    /**
+     * Widok watchlisty tylko do odczytu - bez kopii, odzwierciedla bieżący stan.
+     */
+    public Set<String> getWatchlistView() {
+        return watchlistView;
+    }
+
     public boolean addToWatchlist(String ticker) {
         if (ticker == null || ticker.isBlank()) {
             throw new IllegalArgumentException("Ticker nie może być pusty");
         }
-        return watchlist.add(ticker);
+        boolean added = watchlist.add(ticker);
+        if (added) {
+            version++;
+            for (PortfolioListener l : listeners) {
+                l.onWatchlistAdded(ticker);
+            }
+        }
+        return added;
     }
 
     public boolean removeFromWatchlist(String ticker) {
         if (ticker == null || ticker.isBlank()) {
             throw new IllegalArgumentException("Ticker nie może być pusty");
         }
-        return watchlist.remove(ticker);
+        boolean removed = watchlist.remove(ticker);
+        if (removed) {
+            version++;
+            for (PortfolioListener l : listeners) {
+                l.onWatchlistRemoved(ticker);
+            }
+        }
+        return removed;
     }
 
     public List<Position> getPositionsSnapshot() {
@@ -84,26 +293,46 @@ public class Portfolio {
         return list;
     }
 
+    /**
+     * Widok pozycji tylko do odczytu - bez kopii. Iteracja przerwana zmianą zestawu pozycji
+     * kończy się ConcurrentModificationException.
+     */
+    public Collection<Position> getPositionsView() {
+        return positionsView;
+    }
+
     public void addPositionFromPersistence(Position position) {
         if (position == null) {
             throw new IllegalArgumentException("position nie może być null");
         }
-        String ticker = position.getAsset().getTicker();
-        if (positions.containsKey(ticker)) {
-            throw new IllegalArgumentException("Duplikat pozycji w persystencji: " + ticker);
+        Asset asset = position.getAsset();
+        if (positions.containsKey(asset.getAssetId())) {
+            throw new IllegalArgumentException("Duplikat pozycji w persystencji: " + asset.getTicker());
         }
-        positions.put(ticker, position);
+        positions.put(asset.getAssetId(), position);
+        version++;
+        track(position);
     }
 
     public Position getPositionOrNull(String ticker) {
-        if (ticker == null) {
+        int id = AssetRegistry.global().idOf(ticker);
+        return id == AssetRegistry.NO_ID ? null : positions.get(id);
+    }
+
+    public Position getPositionOrNull(Asset asset) {
+        if (asset == null) {
             return null;
         }
-        return positions.get(ticker);
+        return positions.get(asset.getAssetId());
     }
 
     public int getTotalQuantity(String ticker) {
-        Position p = positions.get(ticker);
+        Position p = getPositionOrNull(ticker);
+        return p == null ? 0 : p.getTotalQuantity();
+    }
+
+    public int getTotalQuantity(Asset asset) {
+        Position p = getPositionOrNull(asset);
         return p == null ? 0 : p.getTotalQuantity();
     }
 
@@ -111,7 +340,39 @@ public class Portfolio {
         return nextOrderSequence++;
     }
 
-    public void placeOrder(OrderSide side, Asset asset, int quantity, double limitPrice, LocalDate date) {
+    /**
+     * Następna sekwencja/identyfikator zlecenia (bez jej pobierania) - do zapisu w checkpoincie.
+     */
+    public long peekNextOrderSequence() {
+        return nextOrderSequence;
+    }
+
+    /**
+     * Przywraca licznik sekwencji z persystencji, żeby nowe zlecenia nie dostały identyfikatorów
+     * zleceń wykonanych albo anulowanych przed awarią. Licznik nigdy się nie cofa.
+     */
+    public void restoreOrderSequenceFromPersistence(long next) {
+        nextOrderSequence = Math.max(nextOrderSequence, next);
+    }
+
+    /**
+     * Składa zlecenie z limitem.
+     *
+     * @return identyfikator zlecenia (do anulowania/zmiany)
+     */
+    public long placeOrder(OrderSide side, Asset asset, int quantity, double limitPrice, LocalDate date) {
+        return placeOrder(side, asset, quantity, limitPrice, date, TimeInForce.GTC, null);
+    }
+
+    /**
+     * Składa zlecenie z limitem i ważnością. DAY wygasa po dniu date, GTD po dniu expiryDate
+     * (advanceDate), GTC czeka do wykonania albo anulowania. IOC wykonuje się od razu, jeśli jest
+     * wykonalne, a w przeciwnym razie wygasa bez wejścia do księgi.
+     *
+     * @return identyfikator zlecenia (do anulowania/zmiany)
+     */
+    public long placeOrder(OrderSide side, Asset asset, int quantity, double limitPrice, LocalDate date,
+                           TimeInForce timeInForce, LocalDate expiryDate) {
         if (side == null) {
             throw new IllegalArgumentException("Side nie może być null");
         }
@@ -128,38 +389,347 @@ public class Portfolio {
             throw new IllegalArgumentException("Limit price nie może być ujemny");
         }
 
-        Order order = new Order(nextOrderSequence(), side, asset, quantity, limitPrice, asset.getMarketPrice(), date);
-        pendingOrders.add(order);
+        if (timeInForce == null) {
+            throw new IllegalArgumentException("Ważność zlecenia nie może być null");
+        }
+        if (timeInForce == TimeInForce.GTD && expiryDate == null) {
+            throw new IllegalArgumentException("Zlecenie GTD wymaga daty ważności");
+        }
+        if (timeInForce != TimeInForce.GTD && expiryDate != null) {
+            throw new IllegalArgumentException("Data ważności dotyczy tylko zleceń GTD");
+        }
+        if (expiryDate != null && expiryDate.isBefore(date)) {
+            throw new IllegalArgumentException("Data ważności nie może być wcześniejsza niż data zlecenia");
+        }
+        // ostatni dzień ważności jak w Order: DAY - dzień zlecenia, GTD - expiryDate
+        LocalDate lastValidDay = timeInForce == TimeInForce.DAY ? date : expiryDate;
+        if (lastValidDay != null && currentDate != null && lastValidDay.isBefore(currentDate)) {
+            throw new IllegalArgumentException("Zlecenie wygasło przed złożeniem: " + lastValidDay);
+        }
+
+        long sequence = nextOrderSequence();
+        Order order = new Order(sequence, sequence, side, asset, quantity, limitPrice, asset.getMarketPrice(), date,
+                timeInForce, expiryDate);
+
+        if (timeInForce == TimeInForce.IOC) {
+            placeImmediateOrCancel(order);
+            return order.getId();
+        }
+        enqueue(order);
+        scheduleExpiry(order);
+        for (PortfolioListener l : listeners) {
+            l.onOrderPlaced(order);
+        }
+        ORDERS_PLACED.increment();
+        publishBookDepth();
+        return order.getId();
+    }
+
+    // IOC nie trafia do księgi: wykonanie od razu albo wygaśnięcie
+    private void placeImmediateOrCancel(Order order) {
+        version++;
+        for (PortfolioListener l : listeners) {
+            l.onOrderPlaced(order);
+        }
+        ORDERS_PLACED.increment();
+        if (isExecutable(order)) {
+            try {
+                executeOrder(order);
+            } catch (InsufficientFundsException | InsufficientHoldingsException e) {
+                reject(order, e);
+                throw e;
+            }
+        } else {
+            expire(order);
+        }
+    }
+
+    private void scheduleExpiry(Order order) {
+        if (order.getExpiryDate() != null) {
+            // wygasa z początkiem dnia następnego po ostatnim dniu ważności
+            expiries.schedule(order.getId(), order.getExpiryDate().plusDays(1));
+        }
+    }
+
+    // zlecenie opuszcza księgę inaczej niż przez wygaśnięcie - koło trzyma tylko zlecenia z księgi
+    private void unscheduleExpiry(Order order) {
+        if (order.getExpiryDate() != null) {
+            expiries.remove(order.getId(), order.getExpiryDate().plusDays(1));
+        }
+    }
+
+    private void expire(Order order) {
+        version++;
+        for (PortfolioListener l : listeners) {
+            l.onOrderExpired(order);
+        }
+        ORDERS_EXPIRED.increment();
+    }
+
+    /**
+     * Bieżąca data zegara symulacji albo null, jeśli advanceDate nie był jeszcze wywołany.
+     */
+    public LocalDate getCurrentDate() {
+        return currentDate;
+    }
+
+    /**
+     * Przesuwa zegar symulacji na dzień date i zdejmuje z księgi zlecenia DAY/GTD, których ostatni
+     * dzień ważności jest wcześniejszy niż date. Koszt zależy od liczby wygasłych zleceń, nie od
+     * wielkości księgi (ExpiryWheel).
+     *
+     * @return wygasłe zlecenia w kolejności terminów
+     */
+    public List<Order> advanceDate(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Data nie może być null");
+        }
+        if (currentDate != null && date.isBefore(currentDate)) {
+            throw new IllegalArgumentException("Zegar symulacji nie może się cofać: " + date);
+        }
+        boolean changed = !date.equals(currentDate);
+        currentDate = date;
+        List<Order> expired = new ArrayList<>();
+        expiries.advanceTo(date, id -> {
+            Order removed = pendingOrders.remove(id);
+            if (removed != null) {
+                releaseTrigger(removed);
+                expired.add(removed);
+                expire(removed);
+            }
+        });
+        if (!expired.isEmpty()) {
+            publishBookDepth();
+        }
+        if (changed) {
+            for (PortfolioListener l : listeners) {
+                l.onDateAdvanced(date);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Liczba zleceń czekających w kole wygaśnięć (DAY/GTD z księgi).
+     */
+    public int getScheduledExpiryCount() {
+        return expiries.size();
+    }
+
+    private void enqueue(Order order) {
+        boolean executable = isExecutable(order);
+        pendingOrders.add(order, executable);
+        version++;
+        if (!executable && triggerEngine != null) {
+            triggerEngine.watch(order.getAsset());
+        }
+    }
+
+    /**
+     * Oczekujące zlecenie o danym identyfikatorze albo null (wykonane, anulowane, nieznane).
+     */
+    public Order getOrderOrNull(long orderId) {
+        return pendingOrders.get(orderId);
+    }
+
+    /**
+     * Anuluje oczekujące zlecenie (O(log n)).
+     *
+     * @return false, jeśli zlecenia nie ma już w księdze
+     */
+    public boolean cancelOrder(long orderId) {
+        Order removed = pendingOrders.remove(orderId);
+        if (removed == null) {
+            return false;
+        }
+        version++;
+        unscheduleExpiry(removed);
+        releaseTrigger(removed);
+        for (PortfolioListener l : listeners) {
+            l.onOrderCancelled(removed);
+        }
+        ORDERS_CANCELLED.increment();
+        publishBookDepth();
+        return true;
+    }
+
+    /**
+     * Zmienia ilość oczekującego zlecenia. Zlecenie zachowuje miejsce w kolejce.
+     *
+     * @return false, jeśli zlecenia nie ma już w księdze
+     */
+    public boolean amendOrderQuantity(long orderId, int newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Ilość musi być dodatnia");
+        }
+        Order before = pendingOrders.get(orderId);
+        if (before == null) {
+            return false;
+        }
+        Order after = pendingOrders.replaceQuantity(orderId, newQuantity);
+        version++;
+        for (PortfolioListener l : listeners) {
+            l.onOrderAmended(before, after);
+        }
+        ORDERS_AMENDED.increment();
+        return true;
+    }
+
+    /**
+     * Zmienia limit ceny oczekującego zlecenia. Zlecenie traci miejsce w kolejce (dostaje nową
+     * sekwencję, identyfikator zostaje), a wykonalność jest liczona od bieżącej ceny rynkowej.
+     *
+     * @return false, jeśli zlecenia nie ma już w księdze
+     */
+    public boolean amendOrderPrice(long orderId, double newLimitPrice) {
+        if (newLimitPrice < 0) {
+            throw new IllegalArgumentException("Limit price nie może być ujemny");
+        }
+        Order before = pendingOrders.remove(orderId);
+        if (before == null) {
+            return false;
+        }
+        Order after = new Order(before.getId(), nextOrderSequence(), before.getSide(), before.getAsset(),
+                before.getQuantity(), newLimitPrice, before.getAsset().getMarketPrice(), before.getDate(),
+                before.getTimeInForce(), before.getExpiryDate());
+        enqueue(after);
+        releaseTrigger(before);
+        for (PortfolioListener l : listeners) {
+            l.onOrderAmended(before, after);
+        }
+        ORDERS_AMENDED.increment();
+        publishBookDepth();
+        return true;
+    }
+
+    /**
+     * Wstawia zlecenie odtworzone z persystencji z jego identyfikatorem, sekwencją i snapshotem ceny.
+     * Nie powiadamia listenerów; dalsze sekwencje nie kolidują z odtworzoną.
+     */
+    public void restoreOrderFromPersistence(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order nie może być null");
+        }
+        if (pendingOrders.get(order.getId()) != null) {
+            throw new IllegalArgumentException("Duplikat zlecenia w persystencji: " + order.getId());
+        }
+        nextOrderSequence = Math.max(nextOrderSequence, Math.max(order.getId(), order.getSequence()) + 1);
+        enqueue(order);
+        scheduleExpiry(order);
+        publishBookDepth();
+    }
+
+    /**
+     * Włącza aktywację spoczywających zleceń przy zmianie ceny aktywa (Asset.setMarketPrice).
+     * Aktywowane zlecenie wykonuje się po cenie, która je aktywowała.
+     */
+    public void enablePriceTriggers() {
+        if (triggerEngine != null) {
+            return;
+        }
+        triggerEngine = new OrderTriggerEngine(pendingOrders);
+        for (Asset a : pendingOrders.restingAssets()) {
+            triggerEngine.watch(a);
+        }
+    }
+
+    public void disablePriceTriggers() {
+        if (triggerEngine == null) {
+            return;
+        }
+        triggerEngine.unwatchAll();
+        triggerEngine = null;
+    }
+
+    public boolean isPriceTriggersEnabled() {
+        return triggerEngine != null;
+    }
+
+    /**
+     * Czy wyzwalacze obserwują cenę aktywa (są dla niego zlecenia spoczywające).
+     */
+    public boolean isPriceTriggerWatching(Asset asset) {
+        return triggerEngine != null && triggerEngine.isWatching(asset);
+    }
+
+    private void releaseTrigger(Order removed) {
+        if (triggerEngine != null) {
+            triggerEngine.release(removed.getAsset());
+        }
     }
 
     public Order peekNextOrder() {
         return pendingOrders.peek();
     }
 
+    /**
+     * Zlecenie, które wykona następne processNextExecutableOrder, albo null.
+     */
+    public Order peekNextExecutableOrder() {
+        return pendingOrders.peekExecutable();
+    }
+
+    public int getPendingOrderCount() {
+        return pendingOrders.size();
+    }
+
+    /**
+     * Wykonuje najlepsze wykonalne zlecenie. Gdy wykonanie się nie uda (brak środków/pozycji),
+     * zlecenie jest zdjęte z księgi, listenery dostają onOrderRejected, a wyjątek leci dalej.
+     */
     public SaleReport processNextExecutableOrder() {
-        if (pendingOrders.isEmpty()) {
+        Order o = pendingOrders.pollExecutable(); // najlepszy poziom wśród wykonalnych
+        if (o == null) {
+            PROCESS_IDLE.increment();
             return null;
         }
+        try {
+            return executeOrder(o);
+        } catch (InsufficientFundsException | InsufficientHoldingsException e) {
+            reject(o, e);
+            throw e;
+        } finally {
+            publishBookDepth();
+        }
+    }
 
-        List<Order> skipped = new ArrayList<>();
-        SaleReport result = null;
-
-        while (!pendingOrders.isEmpty()) {
-            Order o = pendingOrders.poll(); // zdejmij z HEAD
-            if (isExecutable(o)) {
-                result = executeOrder(o);
-                break;
+    /**
+     * Wykonuje wszystkie aktualnie wykonalne zlecenia w kolejności priorytetu w jednym przebiegu.
+     * Zlecenia niewykonalne nie są w ogóle dotykane. Zwraca raporty sprzedaży (zakupy raportu nie mają).
+     * Zlecenie, którego wykonanie się nie uda (brak środków/pozycji), jest odrzucane
+     * (onOrderRejected) i przebieg idzie dalej.
+     */
+    public List<SaleReport> processAllExecutableOrders() {
+        List<SaleReport> reports = new ArrayList<>();
+        Order o;
+        while ((o = pendingOrders.pollExecutable()) != null) {
+            try {
+                SaleReport report = executeOrder(o);
+                if (report != null) {
+                    reports.add(report);
+                }
+            } catch (InsufficientFundsException | InsufficientHoldingsException e) {
+                reject(o, e);
             }
-            skipped.add(o);
         }
+        publishBookDepth();
+        return reports;
+    }
 
-        for (Order o : skipped) {
-            pendingOrders.add(o);
+    private void reject(Order order, RuntimeException cause) {
+        version++;
+        ORDERS_REJECTED.increment();
+        for (PortfolioListener l : listeners) {
+            l.onOrderRejected(order, cause);
         }
-
-        return result;
     }
 
+    private void publishBookDepth() {
+        if (METRICS.isEnabled()) {
+            BOOK_DEPTH.record(pendingOrders.size());
+            BOOK_EXECUTABLE.record(pendingOrders.executableCount());
+        }
+    }
 
     private boolean isExecutable(Order order) {
         double market = order.getMarketPriceSnapshot();
@@ -169,17 +739,37 @@ public class Portfolio {
         return order.getLimitPrice() <= market;
     }
 
+    // najpierw wykonanie, potem licznik i onOrderExecuted - nieudane wykonanie zgłasza tylko reject
     private SaleReport executeOrder(Order order) {
-        order.getAsset().setMarketPrice(order.getMarketPriceSnapshot());
-
+        unscheduleExpiry(order);
+        // wycena po snapshocie zlecenia - cena aktywa (i wyzwalacze innych zleceń) bez zmian
+        double fillPrice = order.getMarketPriceSnapshot();
+        SaleReport report = null;
         if (order.getSide() == OrderSide.BUY) {
-            executeBuy(order.getAsset(), order.getQuantity(), order.getDate());
-            return null;
+            executeBuy(order.getAsset(), order.getQuantity(), order.getDate(), fillPrice);
+        } else {
+            Position position = requireSellablePosition(order.getAsset(), order.getQuantity(), order.getDate());
+            report = sellAt(order.getAsset(), order.getQuantity(), order.getDate(), fillPrice, position);
         }
-        return executeSell(order.getAsset(), order.getQuantity(), order.getDate());
+        version++;
+        ORDERS_EXECUTED.increment();
+        for (PortfolioListener l : listeners) {
+            l.onOrderExecuted(order);
+        }
+        return report;
     }
 
     public void executeBuy(Asset asset, int quantity, LocalDate date) {
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset nie może być null");
+        }
+        executeBuy(asset, quantity, date, asset.getMarketPrice());
+    }
+
+    /**
+     * Zakup po wskazanej cenie jednostkowej (przed prowizją/spreadem); cena rynkowa aktywa się nie zmienia.
+     */
+    public void executeBuy(Asset asset, int quantity, LocalDate date, double unitPrice) {
         if (asset == null) {
             throw new IllegalArgumentException("Asset nie może być null");
         }
@@ -190,24 +780,72 @@ public class Portfolio {
             throw new IllegalArgumentException("Ilość musi być dodatnia");
         }
 
-        double totalCost = asset.calculatePurchaseCost(quantity);
+        double totalCost = asset.calculatePurchaseCost(quantity, unitPrice);
         if (cash < totalCost) {
             throw new InsufficientFundsException(
                     "Brak środków na zakup " + asset.getTicker() + ". Koszt: " + totalCost + ", gotówka: " + cash);
         }
         cash -= totalCost;
+        version++;
 
         double effectiveUnitCost = totalCost / quantity;
 
-        Position position = positions.get(asset.getTicker());
+        Position position = positions.get(asset.getAssetId());
         if (position == null) {
             position = new Position(asset);
-            positions.put(asset.getTicker(), position);
+            positions.put(asset.getAssetId(), position);
+            position.addLot(date, quantity, effectiveUnitCost);
+            track(position);
+        } else {
+            position.addLot(date, quantity, effectiveUnitCost);
+            refreshWorth(position);
+        }
+
+        for (PortfolioListener l : listeners) {
+            l.onBuy(asset, quantity, date, unitPrice);
         }
-        position.addLot(date, quantity, effectiveUnitCost);
     }
 
     public SaleReport executeSell(Asset asset, int quantity, LocalDate date) {
+        Position position = requireSellablePosition(asset, quantity, date);
+        return sellAt(asset, quantity, date, asset.getMarketPrice(), position);
+    }
+
+    private SaleReport sellAt(Asset asset, int quantity, LocalDate date, double unitPrice, Position position) {
+        double totalProceeds = asset.calculateSellProceeds(quantity, unitPrice);
+        double unitSaleProceed = totalProceeds / quantity;
+
+        SaleReport report = position.sellFifo(date, quantity, unitSaleProceed);
+        settleSell(asset, quantity, date, unitPrice, position, totalProceeds);
+        return report;
+    }
+
+    /**
+     * Wariant sprzedaży bez SaleReport: zdjęcia partii trafiają do consumer (może być null),
+     * zwracany jest łączny P&L.
+     */
+    public double executeSell(Asset asset, int quantity, LocalDate date, LotConsumer consumer) {
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset nie może być null");
+        }
+        return executeSell(asset, quantity, date, asset.getMarketPrice(), consumer);
+    }
+
+    /**
+     * Jak executeSell(asset, quantity, date, consumer), ale po wskazanej cenie jednostkowej.
+     */
+    public double executeSell(Asset asset, int quantity, LocalDate date, double unitPrice, LotConsumer consumer) {
+        Position position = requireSellablePosition(asset, quantity, date);
+
+        double totalProceeds = asset.calculateSellProceeds(quantity, unitPrice);
+        double unitSaleProceed = totalProceeds / quantity;
+
+        double pnl = position.sellFifo(quantity, unitSaleProceed, consumer);
+        settleSell(asset, quantity, date, unitPrice, position, totalProceeds);
+        return pnl;
+    }
+
+    private Position requireSellablePosition(Asset asset, int quantity, LocalDate date) {
         if (asset == null) {
             throw new IllegalArgumentException("Asset nie może być null");
         }
@@ -218,20 +856,36 @@ public class Portfolio {
             throw new IllegalArgumentException("Ilość musi być dodatnia");
         }
 
-        Position position = positions.get(asset.getTicker());
+        Position position = positions.get(asset.getAssetId());
         if (position == null || position.getTotalQuantity() <= 0) {
             throw new InsufficientHoldingsException("Brak pozycji do sprzedaży dla " + asset.getTicker());
         }
+        return position;
+    }
 
-        double totalProceeds = asset.calculateSellProceeds(quantity);
-        double unitSaleProceed = totalProceeds / quantity;
-
-        SaleReport report = position.sellFifo(date, quantity, unitSaleProceed);
+    private void settleSell(Asset asset, int quantity, LocalDate date, double unitPrice, Position position,
+                            double totalProceeds) {
         cash += totalProceeds;
+        version++;
 
         if (position.getTotalQuantity() == 0) {
-            positions.remove(asset.getTicker());
+            positions.remove(asset.getAssetId());
+            untrack(position);
+        } else {
+            refreshWorth(position);
         }
-        return report;
+
+        for (PortfolioListener l : listeners) {
+            l.onSell(asset, quantity, date, unitPrice);
+        }
+    }
+
+    /**
+     * Zlecenia oczekujące (wykonalne i spoczywające) w kolejności sekwencji.
+     */
+    public List<Order> getPendingOrdersSnapshot() {
+        List<Order> orders = pendingOrders.ordersSnapshot();
+        orders.sort(Comparator.comparingLong(Order::getSequence));
+        return orders;
     }
 }
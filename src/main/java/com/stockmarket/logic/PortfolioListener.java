@@ -0,0 +1,69 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+
+import java.time.LocalDate;
+
+/**
+ * Obserwator mutacji portfela. Wywoływany po udanej zmianie stanu
+ * (onOrderExecuted - po wykonaniu zlecenia, czyli po jego onBuy/onSell).
+ */
+public interface PortfolioListener {
+    default void onBuy(Asset asset, int quantity, LocalDate date) {
+    }
+
+    default void onSell(Asset asset, int quantity, LocalDate date) {
+    }
+
+    /**
+     * Zakup z ceną jednostkową wykonania (dla zleceń - snapshot zlecenia, nie bieżąca cena aktywa).
+     * Domyślnie deleguje do wariantu bez ceny.
+     */
+    default void onBuy(Asset asset, int quantity, LocalDate date, double unitPrice) {
+        onBuy(asset, quantity, date);
+    }
+
+    default void onSell(Asset asset, int quantity, LocalDate date, double unitPrice) {
+        onSell(asset, quantity, date);
+    }
+
+    default void onOrderPlaced(Order order) {
+    }
+
+    default void onOrderExecuted(Order order) {
+    }
+
+    default void onOrderCancelled(Order order) {
+    }
+
+    /**
+     * Zlecenie zdjęte do wykonania, którego wykonanie się nie powiodło (brak środków albo pozycji).
+     * Zlecenie nie wraca do księgi; stan portfela jest jak przed próbą, onOrderExecuted nie przychodzi.
+     */
+    default void onOrderRejected(Order order, RuntimeException cause) {
+    }
+
+    /**
+     * Zlecenie zdjęte z księgi po upływie ważności (Portfolio.advanceDate) albo niewykonane od razu IOC.
+     */
+    default void onOrderExpired(Order order) {
+    }
+
+    /**
+     * Zegar symulacji przesunięty na nowy dzień (Portfolio.advanceDate), po zdjęciu wygasłych zleceń.
+     */
+    default void onDateAdvanced(LocalDate date) {
+    }
+
+    /**
+     * Zmiana ilości (after ma tę samą sekwencję) albo limitu (after ma nową sekwencję).
+     */
+    default void onOrderAmended(Order before, Order after) {
+    }
+
+    default void onWatchlistAdded(String ticker) {
+    }
+
+    default void onWatchlistRemoved(String ticker) {
+    }
+}
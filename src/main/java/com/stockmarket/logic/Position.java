@@ -2,27 +2,37 @@ package com.stockmarket.logic;
 
 import com.stockmarket.domain.Asset;
 import com.stockmarket.logic.exceptions.InsufficientHoldingsException;
+import com.stockmarket.logic.metrics.Histogram;
+import com.stockmarket.logic.metrics.MetricsRegistry;
 
 import java.time.LocalDate;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
 
 /**
- * Pozycja w portfelu dla konkretnego aktywa. Trzyma partie zakupowe.
+ * Pozycja w portfelu dla konkretnego aktywa. Trzyma partie zakupowe
+ * (kolumnowo, w LotStore - bez obiektu na partię).
  */
 public class Position {
+    // partie dotknięte (zdjęte w całości lub częściowo) jedną sprzedażą FIFO
+    private static final Histogram LOTS_PER_SALE = MetricsRegistry.global().histogram("position.sellFifo.lots");
+
     private final Asset asset;
-    private final Deque<PurchaseLot> lots;
+    private final LotStore lots;
     private int totalQuantity;
 
+    // wartości ostatnio wliczone do sum bieżących Portfolio i wersja ceny aktywa, przy której je
+    // policzono (aktualizowane tylko przez Portfolio)
+    double trackedMarketValue;
+    double trackedRealValue;
+    long trackedPriceVersion;
+
     public Position(Asset asset) {
         if (asset == null) {
             throw new IllegalArgumentException("Asset nie może być null");
         }
         this.asset = asset;
-        this.lots = new ArrayDeque<>();
+        this.lots = new LotStore();
         this.totalQuantity = 0;
     }
 
@@ -35,20 +45,48 @@ public class Position {
     }
 
     public void addLot(LocalDate date, int quantity, double effectiveUnitCost) {
-        PurchaseLot lot = new PurchaseLot(date, quantity, effectiveUnitCost);
-        lots.addLast(lot);
+        require(date != null, "date null");
+        addLot(toEpochDay(date), quantity, effectiveUnitCost);
+    }
+
+    public void addLot(int epochDay, int quantity, double effectiveUnitCost) {
+        require(quantity > 0, "qty <= 0");
+        require(effectiveUnitCost >= 0, "price < 0");
+        lots.addLast(epochDay, quantity, effectiveUnitCost);
         totalQuantity += quantity;
     }
 
+    public int getLotCount() {
+        return lots.size();
+    }
+
+    /**
+     * Kursor po partiach bez kopiowania (fail-fast na modyfikację).
+     */
+    public LotCursor lotCursor() {
+        return new LotCursor(lots);
+    }
+
     public List<PurchaseLot> getLotsSnapshot() {
-        List<PurchaseLot> copy = new ArrayList<>();
-        for (PurchaseLot lot : lots) {
-            copy.add(new PurchaseLot(lot.getPurchaseDate(), lot.getQuantity(), lot.getUnitPrice()));
+        List<PurchaseLot> copy = new ArrayList<>(lots.size());
+        for (int i = 0; i < lots.size(); i++) {
+            copy.add(new PurchaseLot(LocalDate.ofEpochDay(lots.epochDayAt(i)), lots.quantityAt(i), lots.unitCostAt(i)));
         }
         return copy;
     }
 
     public SaleReport sellFifo(LocalDate saleDate, int quantityToSell, double unitSaleProceed) {
+        SaleReport report = new SaleReport(asset.getTicker(), saleDate, quantityToSell, unitSaleProceed);
+        sellFifo(quantityToSell, unitSaleProceed, (day, taken, buyUnitPrice, pnl) ->
+                report.addLotResult(new SaleLotResult(LocalDate.ofEpochDay(day), taken, buyUnitPrice, pnl)));
+        return report;
+    }
+
+    /**
+     * Sprzedaż FIFO bez raportu: każde zdjęcie partii trafia do consumer (może być null),
+     * zwracany jest łączny P&L. Nie alokuje nic po stronie pozycji.
+     */
+    public double sellFifo(int quantityToSell, double unitSaleProceed, LotConsumer consumer) {
         if (quantityToSell <= 0) {
             throw new IllegalArgumentException("Ilość do sprzedaży musi być dodatnia");
         }
@@ -58,31 +96,44 @@ public class Position {
         }
 
         int remaining = quantityToSell;
-        SaleReport report = new SaleReport(asset.getTicker(), saleDate, quantityToSell, unitSaleProceed);
+        double totalPnl = 0;
+        int lotsTouched = 0;
 
         while (remaining > 0) {
-            PurchaseLot lot = lots.peekFirst();
-            if (lot == null) {
+            if (lots.isEmpty()) {
                 throw new InsufficientHoldingsException("Brak partii do sprzedaży dla " + asset.getTicker());
             }
 
-            int availableInLot = lot.getQuantity();
+            int availableInLot = lots.firstQuantity();
             int taken = Math.min(availableInLot, remaining);
+            double buyUnitPrice = lots.firstUnitCost();
 
-            double pnl = taken * (unitSaleProceed - lot.getUnitPrice());
-            report.addLotResult(new SaleLotResult(lot.getPurchaseDate(), taken, lot.getUnitPrice(), pnl));
+            double pnl = taken * (unitSaleProceed - buyUnitPrice);
+            totalPnl += pnl;
+            if (consumer != null) {
+                consumer.accept(lots.firstEpochDay(), taken, buyUnitPrice, pnl);
+            }
 
-            lot.reduceQuantity(taken);
+            lots.reduceFirst(taken);
             totalQuantity -= taken;
             remaining -= taken;
-
-            if (lot.getQuantity() == 0) {
-                lots.removeFirst();
-            }
+            lotsTouched++;
         }
+        LOTS_PER_SALE.record(lotsTouched);
 
-        return report;
+        return totalPnl;
     }
+
+    private static int toEpochDay(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        require(epochDay >= Integer.MIN_VALUE && epochDay <= Integer.MAX_VALUE, "date out of range");
+        return (int) epochDay;
+    }
+
+    private static void require(boolean ok, String msg) {
+        if (!ok) throw new IllegalArgumentException(msg);
+    }
+
     public double getMarketValue() {
         return asset.getMarketValue(totalQuantity);
     }
@@ -0,0 +1,103 @@
+package com.stockmarket.logic;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Jedna strona księgi (BUY albo SELL) dla jednego tickera: poziomy cenowe posortowane
+ * od najatrakcyjniejszego, w obrębie poziomu kolejka FIFO wg sekwencji.
+ *
+ * Poziom to mapa sekwencja -> zlecenie, więc zdjęcie lub podmiana dowolnego zlecenia
+ * (anulowanie, zmiana ilości) kosztuje O(log n), a nie przeszukanie kolejki.
+ */
+class PriceLevels {
+    private final OrderSide side;
+    private final NavigableMap<Double, NavigableMap<Long, Order>> levels;
+    private int size;
+
+    PriceLevels(OrderSide side) {
+        this.side = side;
+        // BUY: wyższy limit pierwszy, SELL: niższy limit pierwszy (jak OrderAttractivenessComparator)
+        this.levels = side == OrderSide.BUY
+                ? new TreeMap<>(Comparator.reverseOrder())
+                : new TreeMap<>();
+    }
+
+    void add(Order order) {
+        levels.computeIfAbsent(order.getLimitPrice(), k -> new TreeMap<>()).put(order.getSequence(), order);
+        size++;
+    }
+
+    /**
+     * Zdejmuje zlecenie z jego poziomu; false, jeśli go tu nie ma.
+     */
+    boolean remove(Order order) {
+        NavigableMap<Long, Order> level = levels.get(order.getLimitPrice());
+        if (level == null || level.remove(order.getSequence()) == null) {
+            return false;
+        }
+        if (level.isEmpty()) {
+            levels.remove(order.getLimitPrice());
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Podmienia zlecenie na wersję o tej samej cenie i sekwencji (miejsce w kolejce bez zmian).
+     */
+    void replace(Order current, Order updated) {
+        NavigableMap<Long, Order> level = levels.get(current.getLimitPrice());
+        if (level == null || !level.containsKey(current.getSequence())) {
+            throw new IllegalStateException("Zlecenia nie ma w księdze: " + current.getId());
+        }
+        level.put(updated.getSequence(), updated);
+    }
+
+    Order first() {
+        Map.Entry<Double, NavigableMap<Long, Order>> best = levels.firstEntry();
+        return best == null ? null : best.getValue().firstEntry().getValue();
+    }
+
+    /**
+     * Czy najlepszy poziom jest "przekroczony" przez cenę: dla BUY limit >= cena, dla SELL limit <= cena.
+     */
+    boolean isFirstCrossedBy(double price) {
+        Map.Entry<Double, NavigableMap<Long, Order>> best = levels.firstEntry();
+        if (best == null) {
+            return false;
+        }
+        return side == OrderSide.BUY ? best.getKey() >= price : best.getKey() <= price;
+    }
+
+    Order pollFirst() {
+        Map.Entry<Double, NavigableMap<Long, Order>> best = levels.firstEntry();
+        if (best == null) {
+            return null;
+        }
+        NavigableMap<Long, Order> level = best.getValue();
+        Order head = level.pollFirstEntry().getValue();
+        if (level.isEmpty()) {
+            levels.remove(best.getKey());
+        }
+        size--;
+        return head;
+    }
+
+    void forEach(Consumer<Order> action) {
+        for (NavigableMap<Long, Order> level : levels.values()) {
+            level.values().forEach(action);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.stockmarket.logic;
+
+/**
+ * Ważność zlecenia.
+ */
+public enum TimeInForce {
+    /** Do końca dnia złożenia (Order.getDate()). */
+    DAY,
+    /** Do końca wskazanego dnia (Order.getExpiryDate()). */
+    GTD,
+    /** Bezterminowo, do wykonania albo anulowania. */
+    GTC,
+    /** Wykonanie od razu przy złożeniu albo wcale - nie trafia do księgi. */
+    IOC
+}
@@ -0,0 +1,187 @@
+package com.stockmarket.logic.backtest;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioListener;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+import com.stockmarket.logic.market.MarketDataFeed;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Backtest na historycznym szeregu cen (PriceSeriesReader).
+ *
+ * Plik czytany jest strumieniowo. Krok symulacji to jeden dzień: notowania dnia ustawiają ceny
+ * aktywów z feedu (wyzwalacze cenowe portfela aktywują spoczywające zlecenia), po ostatnim notowaniu
+ * dnia zegar portfela przesuwa się na ten dzień (wygasają zlecenia DAY/GTD z wcześniejszych dni),
+ * wołana jest strategia, wykonywane są wszystkie wykonalne zlecenia i zapisywany jest punkt
+ * krzywej kapitału (wartość rynkowa portfela). Zlecenia, których wykonanie się nie uda (brak środków
+ * albo pozycji), są odrzucane i liczone w wyniku - nie przerywają przebiegu.
+ *
+ * Silnik jest jednorazowy i jednowątkowy - aktywa, feed i portfel należą do jednego przebiegu.
+ */
+public class BacktestEngine {
+    private final MarketDataFeed feed;
+    private final Portfolio portfolio;
+    private final BacktestStrategy strategy;
+    private boolean used;
+    // wszystko, co wykonało się albo zostało odrzucone w trakcie przebiegu (także IOC ze strategii)
+    private long executed;
+    private long rejected;
+    private final PortfolioListener orderCounter = new PortfolioListener() {
+        @Override
+        public void onOrderExecuted(Order order) {
+            executed++;
+        }
+
+        @Override
+        public void onOrderRejected(Order order, RuntimeException cause) {
+            rejected++;
+        }
+    };
+
+    public BacktestEngine(MarketDataFeed feed, Portfolio portfolio, BacktestStrategy strategy) {
+        if (feed == null) {
+            throw new IllegalArgumentException("Feed nie może być null");
+        }
+        if (portfolio == null) {
+            throw new IllegalArgumentException("Portfolio nie może być null");
+        }
+        this.feed = feed;
+        this.portfolio = portfolio;
+        this.strategy = strategy == null ? BacktestStrategy.NONE : strategy;
+    }
+
+    public BacktestResult run(Path priceSeries) {
+        if (priceSeries == null) {
+            throw new IllegalArgumentException("path null");
+        }
+        try (Reader reader = Files.newBufferedReader(priceSeries, StandardCharsets.UTF_8)) {
+            return run(reader);
+        } catch (IOException e) {
+            throw new DataIntegrityException("backtest read failed", e);
+        }
+    }
+
+    public BacktestResult run(Reader priceSeries) {
+        if (priceSeries == null) {
+            throw new IllegalArgumentException("reader null");
+        }
+        if (used) {
+            throw new IllegalStateException("Silnik backtestu był już uruchomiony");
+        }
+        used = true;
+        if (!portfolio.isPriceTriggersEnabled()) {
+            portfolio.enablePriceTriggers();
+        }
+
+        EquityCurve curve = new EquityCurve();
+        long ticks = 0;
+        long skipped = 0;
+        long start = System.nanoTime();
+
+        PriceSeriesReader reader = new PriceSeriesReader(priceSeries);
+        portfolio.addListener(orderCounter);
+        try {
+            LocalDate day = null;
+            while (reader.next()) {
+                if (day != null && !reader.date().equals(day)) {
+                    step(day, curve);
+                }
+                day = reader.date();
+
+                Asset asset = feed.getAssetOrNull(reader.ticker());
+                if (asset == null) {
+                    skipped++;
+                    continue;
+                }
+                asset.setMarketPrice(reader.price());
+                ticks++;
+            }
+            if (day != null) {
+                step(day, curve);
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("backtest read failed", e);
+        } finally {
+            portfolio.removeListener(orderCounter);
+        }
+
+        return new BacktestResult(portfolio, curve, ticks, skipped, executed, rejected, System.nanoTime() - start);
+    }
+
+    private void step(LocalDate day, EquityCurve curve) {
+        // przed wykonaniem: zlecenie DAY z wczoraj nie może się wykonać po dzisiejszych cenach
+        portfolio.advanceDate(day);
+        strategy.onStep(day, portfolio, feed);
+        portfolio.processAllExecutableOrders();
+        curve.add(day, portfolio.calculateTotalMarketWorth());
+    }
+
+    /**
+     * Niezależne przebiegi (np. różne parametry strategii) na tym samym pliku, równolegle.
+     * Każdy supplier musi zbudować silnik z własnymi aktywami, feedem i portfelem - przebiegi
+     * nie mogą współdzielić obiektów Asset. Każdy przebieg czyta plik osobno.
+     * Wyniki w kolejności setups; pierwszy błąd przebiegu jest rzucany dalej.
+     */
+    public static List<BacktestResult> runParallel(Path priceSeries, List<? extends Supplier<BacktestEngine>> setups,
+                                                   int threads) {
+        if (priceSeries == null) {
+            throw new IllegalArgumentException("path null");
+        }
+        if (setups == null) {
+            throw new IllegalArgumentException("Lista przebiegów nie może być null");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Liczba wątków musi być dodatnia");
+        }
+        if (setups.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Callable<BacktestResult>> tasks = new ArrayList<>(setups.size());
+        for (Supplier<BacktestEngine> setup : setups) {
+            if (setup == null) {
+                throw new IllegalArgumentException("Przebieg nie może być null");
+            }
+            tasks.add(() -> setup.get().run(priceSeries));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            List<BacktestResult> results = new ArrayList<>(tasks.size());
+            for (Future<BacktestResult> f : pool.invokeAll(tasks)) {
+                results.add(f.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Backtest przerwany", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Przebieg backtestu nie powiódł się", cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
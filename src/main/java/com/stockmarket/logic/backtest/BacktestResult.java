@@ -0,0 +1,69 @@
+package com.stockmarket.logic.backtest;
+
+import com.stockmarket.logic.Portfolio;
+
+/**
+ * Wynik przebiegu backtestu.
+ */
+public final class BacktestResult {
+    private final Portfolio portfolio;
+    private final EquityCurve equityCurve;
+    private final long ticks;
+    private final long skippedTicks;
+    private final long ordersExecuted;
+    private final long ordersRejected;
+    private final long elapsedNanos;
+
+    BacktestResult(Portfolio portfolio, EquityCurve equityCurve, long ticks, long skippedTicks,
+                   long ordersExecuted, long ordersRejected, long elapsedNanos) {
+        this.portfolio = portfolio;
+        this.equityCurve = equityCurve;
+        this.ticks = ticks;
+        this.skippedTicks = skippedTicks;
+        this.ordersExecuted = ordersExecuted;
+        this.ordersRejected = ordersRejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Portfolio getPortfolio() {
+        return portfolio;
+    }
+
+    public EquityCurve getEquityCurve() {
+        return equityCurve;
+    }
+
+    /**
+     * Notowania zastosowane do aktywów.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Notowania tickerów niezarejestrowanych w feedzie przebiegu (pominięte).
+     */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    public long getOrdersExecuted() {
+        return ordersExecuted;
+    }
+
+    /**
+     * Zlecenia zdjęte do wykonania, których wykonanie się nie powiodło (brak środków albo pozycji).
+     */
+    public long getOrdersRejected() {
+        return ordersRejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getTicksPerSecond() {
+        long all = ticks + skippedTicks;
+        return elapsedNanos == 0 ? 0.0 : all * 1e9 / elapsedNanos;
+    }
+}
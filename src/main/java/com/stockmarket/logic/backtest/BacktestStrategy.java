@@ -0,0 +1,17 @@
+package com.stockmarket.logic.backtest;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.market.MarketDataFeed;
+
+import java.time.LocalDate;
+
+/**
+ * Logika strategii wołana raz na krok symulacji (dzień), po wgraniu cen tego dnia
+ * i przed dopasowaniem zleceń. Zlecenia złożone tutaj mogą wykonać się w tym samym kroku.
+ */
+@FunctionalInterface
+public interface BacktestStrategy {
+    BacktestStrategy NONE = (date, portfolio, feed) -> { };
+
+    void onStep(LocalDate date, Portfolio portfolio, MarketDataFeed feed);
+}
@@ -0,0 +1,65 @@
+package com.stockmarket.logic.backtest;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Krzywa kapitału: (dzień, wartość rynkowa portfela) po każdym kroku symulacji.
+ * Kolumnowo na tablicach prymitywów, jak LotStore.
+ */
+public final class EquityCurve {
+    private int[] epochDays = new int[64];
+    private double[] equity = new double[64];
+    private int size;
+
+    void add(LocalDate date, double value) {
+        if (size == epochDays.length) {
+            epochDays = Arrays.copyOf(epochDays, size * 2);
+            equity = Arrays.copyOf(equity, size * 2);
+        }
+        epochDays[size] = (int) date.toEpochDay();
+        equity[size] = value;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LocalDate dateAt(int i) {
+        return LocalDate.ofEpochDay(epochDays[checkIndex(i)]);
+    }
+
+    public double equityAt(int i) {
+        return equity[checkIndex(i)];
+    }
+
+    public double finalEquity() {
+        if (size == 0) {
+            throw new IllegalStateException("Krzywa kapitału jest pusta");
+        }
+        return equity[size - 1];
+    }
+
+    /**
+     * Największy względny spadek od szczytu (0.25 = 25%).
+     */
+    public double maxDrawdown() {
+        double peak = Double.NEGATIVE_INFINITY;
+        double worst = 0;
+        for (int i = 0; i < size; i++) {
+            peak = Math.max(peak, equity[i]);
+            if (peak > 0) {
+                worst = Math.max(worst, (peak - equity[i]) / peak);
+            }
+        }
+        return worst;
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Indeks " + i + ", rozmiar " + size);
+        }
+        return i;
+    }
+}
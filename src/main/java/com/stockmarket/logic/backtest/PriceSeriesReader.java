@@ -0,0 +1,107 @@
+package com.stockmarket.logic.backtest;
+
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Strumieniowy odczyt szeregu cen w formacie CSV: {@code ticker,data,cena}, jedno notowanie na linię,
+ * daty ISO niemalejąco. Pierwsza linia zaczynająca się od "ticker" jest traktowana jako nagłówek;
+ * puste linie są pomijane. W pamięci trzymana jest tylko bieżąca linia.
+ */
+public final class PriceSeriesReader implements Closeable {
+    private final BufferedReader reader;
+    private long lineNo;
+
+    private String ticker;
+    private LocalDate date;
+    private double price;
+
+    // parsowanie daty tylko przy zmianie tekstu (zwykle wiele notowań na dzień)
+    private String lastDateText;
+
+    public PriceSeriesReader(Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("reader nie może być null");
+        }
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+    }
+
+    /**
+     * Przechodzi do następnego notowania; false na końcu strumienia.
+     */
+    public boolean next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (lineNo == 1 && line.regionMatches(true, 0, "ticker", 0, 6)) {
+                continue;
+            }
+            parse(line);
+            return true;
+        }
+        return false;
+    }
+
+    public String ticker() {
+        return ticker;
+    }
+
+    public LocalDate date() {
+        return date;
+    }
+
+    public double price() {
+        return price;
+    }
+
+    public long lineNumber() {
+        return lineNo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void parse(String line) {
+        int c1 = line.indexOf(',');
+        int c2 = c1 < 0 ? -1 : line.indexOf(',', c1 + 1);
+        if (c1 <= 0 || c2 < 0 || line.indexOf(',', c2 + 1) >= 0) {
+            throw new DataIntegrityException("bad tick at line " + lineNo);
+        }
+        String dateText = line.substring(c1 + 1, c2).trim();
+        LocalDate parsedDate = date;
+        if (!dateText.equals(lastDateText)) {
+            try {
+                parsedDate = LocalDate.parse(dateText);
+            } catch (DateTimeParseException e) {
+                throw new DataIntegrityException("bad date at line " + lineNo, e);
+            }
+            if (date != null && parsedDate.isBefore(date)) {
+                throw new DataIntegrityException("dates out of order at line " + lineNo);
+            }
+            lastDateText = dateText;
+        }
+        double parsedPrice;
+        try {
+            parsedPrice = Double.parseDouble(line.substring(c2 + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new DataIntegrityException("bad price at line " + lineNo, e);
+        }
+        if (!(parsedPrice >= 0) || Double.isInfinite(parsedPrice)) {
+            throw new DataIntegrityException("bad price at line " + lineNo);
+        }
+        ticker = line.substring(0, c1).trim();
+        date = parsedDate;
+        price = parsedPrice;
+    }
+}
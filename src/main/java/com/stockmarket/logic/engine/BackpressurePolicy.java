@@ -0,0 +1,13 @@
+package com.stockmarket.logic.engine;
+
+/**
+ * Zachowanie OrderIntake przy pełnym buforze.
+ */
+public enum BackpressurePolicy {
+    /** Producent czeka (parkowanie, bez monitorów) aż zwolni się miejsce. */
+    BLOCK,
+    /** Zgłoszenie jest odrzucane po cichu - zwrócony future jest anulowany. */
+    DROP,
+    /** submit rzuca RejectedExecutionException. */
+    FAIL
+}
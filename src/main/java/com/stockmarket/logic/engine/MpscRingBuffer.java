@@ -0,0 +1,83 @@
+package com.stockmarket.logic.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ograniczony bufor pierścieniowy wielu producentów / jednego konsumenta, bez blokad.
+ *
+ * Każdy slot ma numer sekwencji: sekwencja == pozycja oznacza wolny slot dla producenta,
+ * pozycja + 1 - element gotowy dla konsumenta. Producenci rezerwują pozycję przez CAS na tail,
+ * konsument (jeden wątek) przesuwa head bez synchronizacji.
+ */
+final class MpscRingBuffer<E> {
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // tylko wątek konsumenta
+    private long head;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Pojemność musi być potęgą dwójki >= 2");
+        }
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * @return false, jeśli bufor jest pełny
+     */
+    boolean offer(E element) {
+        while (true) {
+            long pos = tail.get();
+            int i = (int) pos & mask;
+            long diff = sequences.get(i) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    elements[i] = element;
+                    // zapis volatile (nie lazySet): konsument usypiający się musi go zobaczyć
+                    sequences.set(i, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+            // diff > 0: inny producent zajął pozycję - ponów
+        }
+    }
+
+    /**
+     * Tylko z wątku konsumenta.
+     *
+     * @return null, jeśli bufor jest pusty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int i = (int) head & mask;
+        if (sequences.get(i) != head + 1) {
+            return null;
+        }
+        E element = (E) elements[i];
+        elements[i] = null;
+        sequences.lazySet(i, head + elements.length);
+        head++;
+        return element;
+    }
+
+    /**
+     * Tylko z wątku konsumenta.
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
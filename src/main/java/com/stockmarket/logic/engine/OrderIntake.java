@@ -0,0 +1,301 @@
+package com.stockmarket.logic.engine;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.TimeInForce;
+import com.stockmarket.logic.metrics.Counter;
+import com.stockmarket.logic.metrics.Histogram;
+import com.stockmarket.logic.metrics.MetricsRegistry;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Przyjmowanie zleceń od wielu wątków do jednego portfela.
+ *
+ * Producenci publikują zgłoszenia do ograniczonego bufora MPSC bez blokad; jeden wątek
+ * "matchera" zbiera je partiami, składa w księdze (Portfolio.placeOrder), uruchamia dopasowanie
+ * wykonalnych zleceń raz na partię i dopiero wtedy kończy future producentów identyfikatorem
+ * zlecenia. Zależne etapy future bez *Async wykonują się w wątku matchera.
+ *
+ * Zlecenie partii, którego wykonanie się nie uda, kończy swoje future wyjątkiem wykonania
+ * (np. InsufficientFundsException), a dopasowanie reszty księgi idzie dalej. Nieudane wykonania
+ * zleceń z wcześniejszych partii zna tylko portfel (PortfolioListener.onOrderRejected) i licznik
+ * intake.match.failures. Error w wątku matchera kończy wyjątkowo wszystkie oczekujące future,
+ * zamyka intake i leci dalej.
+ *
+ * Dopóki intake działa, portfel czyta i zmienia wyłącznie wątek matchera - inne operacje na
+ * nim przekazuje się przez submit(..) z funkcją albo wykonuje po close().
+ */
+public class OrderIntake implements AutoCloseable {
+    private static final int DEFAULT_BATCH = 256;
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // zabezpieczenie przed zgubionym unpark - matcher i tak budzi się co tyle
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+    private static final Counter ACCEPTED = METRICS.counter("intake.accepted");
+    private static final Counter DROPPED = METRICS.counter("intake.dropped");
+    private static final Counter REJECTED = METRICS.counter("intake.rejected");
+    private static final Counter MATCH_FAILURES = METRICS.counter("intake.match.failures");
+    private static final Histogram BATCH_SIZE = METRICS.histogram("intake.batch.size");
+
+    private final Portfolio portfolio;
+    private final BackpressurePolicy policy;
+    private final MpscRingBuffer<Request> ring;
+    // tylko wątek matchera
+    private final Request[] batch;
+    private final Object[] results;
+    private final Thread matcher;
+
+    private volatile boolean closed;
+    private volatile boolean matcherParked;
+    // producenci między sprawdzeniem closed a publikacją; matcher kończy dopiero przy zerze
+    private final AtomicInteger activeProducers = new AtomicInteger();
+
+    public OrderIntake(Portfolio portfolio, int capacity, BackpressurePolicy policy) {
+        this(portfolio, capacity, policy, DEFAULT_BATCH);
+    }
+
+    /**
+     * @param capacity pojemność bufora (potęga dwójki)
+     * @param maxBatch maksymalna liczba zgłoszeń składanych przed jednym dopasowaniem
+     */
+    public OrderIntake(Portfolio portfolio, int capacity, BackpressurePolicy policy, int maxBatch) {
+        if (portfolio == null) {
+            throw new IllegalArgumentException("Portfolio nie może być null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Polityka nie może być null");
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Rozmiar partii musi być dodatni");
+        }
+        this.portfolio = portfolio;
+        this.policy = policy;
+        this.ring = new MpscRingBuffer<>(capacity);
+        this.batch = new Request[maxBatch];
+        this.results = new Object[maxBatch];
+        this.matcher = new Thread(this::runMatcher, "order-intake-matcher");
+        this.matcher.setDaemon(true);
+        this.matcher.start();
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return ring.capacity();
+    }
+
+    public CompletableFuture<Long> placeOrder(OrderSide side, Asset asset, int quantity,
+                                              double limitPrice, LocalDate date) {
+        return placeOrder(side, asset, quantity, limitPrice, date, TimeInForce.GTC, null);
+    }
+
+    /**
+     * Publikuje zlecenie. Future kończy się identyfikatorem zlecenia po złożeniu go i dopasowaniu
+     * partii albo wyjątkiem walidacji z Portfolio.placeOrder lub nieudanego wykonania w tym
+     * dopasowaniu. Przy pełnym buforze decyduje polityka.
+     *
+     * @throws RejectedExecutionException intake zamknięty albo (FAIL) bufor pełny
+     */
+    public CompletableFuture<Long> placeOrder(OrderSide side, Asset asset, int quantity, double limitPrice,
+                                              LocalDate date, TimeInForce timeInForce, LocalDate expiryDate) {
+        return publish(new Request(p -> p.placeOrder(side, asset, quantity, limitPrice, date,
+                timeInForce, expiryDate), true));
+    }
+
+    public CompletableFuture<Boolean> cancelOrder(long orderId) {
+        return submit(p -> p.cancelOrder(orderId));
+    }
+
+    /**
+     * Dowolna komenda na portfelu, wykonywana w wątku matchera w kolejności publikacji.
+     */
+    public <T> CompletableFuture<T> submit(Function<Portfolio, T> command) {
+        if (command == null) {
+            throw new IllegalArgumentException("Komenda nie może być null");
+        }
+        return publish(new Request(command::apply, false));
+    }
+
+    private <T> CompletableFuture<T> publish(Request request) {
+        activeProducers.incrementAndGet();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Intake zamknięty");
+            }
+            if (!ring.offer(request) && !handleFull(request)) {
+                DROPPED.increment();
+                request.future.cancel(false);
+                return future(request);
+            }
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+        ACCEPTED.increment();
+        if (matcherParked) {
+            LockSupport.unpark(matcher);
+        }
+        return future(request);
+    }
+
+    // true = opublikowano, false = porzucono (DROP)
+    private boolean handleFull(Request request) {
+        if (policy == BackpressurePolicy.FAIL) {
+            REJECTED.increment();
+            throw new RejectedExecutionException("Bufor zleceń pełny");
+        }
+        if (policy == BackpressurePolicy.DROP) {
+            return false;
+        }
+        int spins = 0;
+        while (!ring.offer(request)) {
+            if (closed) {
+                throw new RejectedExecutionException("Intake zamknięty");
+            }
+            if (matcherParked) {
+                LockSupport.unpark(matcher);
+            }
+            if (++spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> future(Request request) {
+        return (CompletableFuture<T>) request.future;
+    }
+
+    /**
+     * Kończy przyjmowanie zgłoszeń, przetwarza już opublikowane i czeka na wątek matchera.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(matcher);
+        try {
+            matcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runMatcher() {
+        while (true) {
+            int n = drain();
+            if (n > 0) {
+                try {
+                    processBatch(n);
+                } catch (Error e) {
+                    failPending(n, e);
+                    throw e;
+                }
+                continue;
+            }
+            // closed przed licznikiem: producent, który minie zero, zobaczy już closed
+            if (closed && activeProducers.get() == 0 && ring.isEmpty()) {
+                return;
+            }
+            matcherParked = true;
+            if (ring.isEmpty() && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            matcherParked = false;
+        }
+    }
+
+    private int drain() {
+        int n = 0;
+        Request r;
+        while (n < batch.length && (r = ring.poll()) != null) {
+            batch[n++] = r;
+        }
+        return n;
+    }
+
+    private void processBatch(int n) {
+        BATCH_SIZE.record(n);
+        for (int i = 0; i < n; i++) {
+            try {
+                results[i] = batch[i].command.apply(portfolio);
+            } catch (RuntimeException e) {
+                batch[i].future.completeExceptionally(e);
+            }
+        }
+        // po jednym zleceniu, żeby znać to, które się nie wykonało; każda próba zdejmuje je z księgi
+        Order next;
+        while ((next = portfolio.peekNextExecutableOrder()) != null) {
+            try {
+                portfolio.processNextExecutableOrder();
+            } catch (RuntimeException e) {
+                MATCH_FAILURES.increment();
+                failPlaced(n, next.getId(), e);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            batch[i].future.complete(results[i]);
+            batch[i] = null;
+            results[i] = null;
+        }
+    }
+
+    // błędy wykonania są rzadkie - liniowe szukanie w partii wystarcza
+    private void failPlaced(int n, long orderId, RuntimeException cause) {
+        for (int i = 0; i < n; i++) {
+            if (batch[i].placesOrder && results[i] instanceof Long && (Long) results[i] == orderId) {
+                batch[i].future.completeExceptionally(cause);
+                return;
+            }
+        }
+    }
+
+    // matcher ginie: nic już nie skończy zgłoszeń z partii ani z bufora
+    private void failPending(int n, Error cause) {
+        closed = true;
+        for (int i = 0; i < n; i++) {
+            batch[i].future.completeExceptionally(cause);
+            batch[i] = null;
+            results[i] = null;
+        }
+        // producent między sprawdzeniem closed a publikacją może jeszcze dopisać zgłoszenie
+        Request r;
+        do {
+            while ((r = ring.poll()) != null) {
+                r.future.completeExceptionally(cause);
+            }
+            Thread.onSpinWait();
+        } while (activeProducers.get() != 0 || !ring.isEmpty());
+    }
+
+    @FunctionalInterface
+    private interface Command {
+        Object apply(Portfolio portfolio);
+    }
+
+    private static final class Request {
+        final Command command;
+        // wynik komendy to identyfikator złożonego zlecenia
+        final boolean placesOrder;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Request(Command command, boolean placesOrder) {
+            this.command = command;
+            this.placesOrder = placesOrder;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.stockmarket.logic.engine;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.SaleReport;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Silnik wielu portfeli podzielonych na shardy.
+ *
+ * Każdy shard ma własny wątek i kolejkę komend; wątek shardu jest jedynym, który czyta i zmienia
+ * swoje portfele, więc zwykłe (niesynchronizowane) Portfolio skaluje się na rdzenie bez blokad.
+ * Portfel trafia do shardu wg hasha identyfikatora; komendy zwracają CompletableFuture.
+ *
+ * Portfele mogą współdzielić obiekty Asset między shardami: portfel nie rejestruje się na aktywie,
+ * a zmianę ceny (z dowolnego wątku) wykrywa przy najbliższej wycenie w wątku swojego shardu, po
+ * wersji ceny. Portfel z włączonymi wyzwalaczami cenowymi (Portfolio.enablePriceTriggers) zmieniałby
+ * księgę w wątku ustawiającym cenę, więc register go odrzuca.
+ */
+public class PortfolioEngine implements AutoCloseable {
+    private final Shard[] shards;
+    // odczyt: sprawdzenie closed + wstawienie komendy; zapis: close() - komenda nie trafi za STOP
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    public PortfolioEngine(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Liczba shardów musi być dodatnia");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard("portfolio-shard-" + i);
+            shards[i].thread.start();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public CompletableFuture<Void> register(String portfolioId, Portfolio portfolio) {
+        if (portfolioId == null || portfolioId.isBlank()) {
+            throw new IllegalArgumentException("Identyfikator portfela nie może być pusty");
+        }
+        if (portfolio == null) {
+            throw new IllegalArgumentException("Portfolio nie może być null");
+        }
+        if (portfolio.isPriceTriggersEnabled()) {
+            throw new IllegalArgumentException("Portfel z wyzwalaczami cenowymi nie może działać w silniku");
+        }
+        Shard shard = shardFor(portfolioId);
+        return shard.enqueue(() -> {
+            if (shard.portfolios.putIfAbsent(portfolioId, portfolio) != null) {
+                throw new IllegalArgumentException("Portfel już zarejestrowany: " + portfolioId);
+            }
+            return null;
+        });
+    }
+
+    public CompletableFuture<Portfolio> unregister(String portfolioId) {
+        Shard shard = shardFor(portfolioId);
+        return shard.enqueue(() -> {
+            Portfolio removed = shard.portfolios.remove(portfolioId);
+            if (removed == null) {
+                throw new IllegalArgumentException("Nieznany portfel: " + portfolioId);
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Wykonuje dowolną komendę na portfelu w wątku jego shardu.
+     */
+    public <T> CompletableFuture<T> submit(String portfolioId, Function<Portfolio, T> command) {
+        if (command == null) {
+            throw new IllegalArgumentException("Komenda nie może być null");
+        }
+        Shard shard = shardFor(portfolioId);
+        return shard.enqueue(() -> command.apply(shard.portfolio(portfolioId)));
+    }
+
+    public CompletableFuture<Void> buy(String portfolioId, Asset asset, int quantity, LocalDate date) {
+        return submit(portfolioId, p -> {
+            p.executeBuy(asset, quantity, date);
+            return null;
+        });
+    }
+
+    public CompletableFuture<SaleReport> sell(String portfolioId, Asset asset, int quantity, LocalDate date) {
+        return submit(portfolioId, p -> p.executeSell(asset, quantity, date));
+    }
+
+    public CompletableFuture<Long> placeOrder(String portfolioId, OrderSide side, Asset asset, int quantity,
+                                              double limitPrice, LocalDate date) {
+        return submit(portfolioId, p -> p.placeOrder(side, asset, quantity, limitPrice, date));
+    }
+
+    public CompletableFuture<Boolean> cancelOrder(String portfolioId, long orderId) {
+        return submit(portfolioId, p -> p.cancelOrder(orderId));
+    }
+
+    public CompletableFuture<SaleReport> processNextExecutableOrder(String portfolioId) {
+        return submit(portfolioId, Portfolio::processNextExecutableOrder);
+    }
+
+    public CompletableFuture<List<SaleReport>> processAllExecutableOrders(String portfolioId) {
+        return submit(portfolioId, Portfolio::processAllExecutableOrders);
+    }
+
+    /**
+     * Kończy przyjmowanie komend, wykonuje te już zakolejkowane i czeka na wątki shardów.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Shard s : shards) {
+                s.queue.add(Shard.STOP);
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        for (Shard s : shards) {
+            try {
+                s.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Shard shardFor(String portfolioId) {
+        if (portfolioId == null) {
+            throw new IllegalArgumentException("Identyfikator portfela nie może być null");
+        }
+        int h = portfolioId.hashCode();
+        h ^= (h >>> 16);
+        return shards[Math.floorMod(h, shards.length)];
+    }
+
+    @FunctionalInterface
+    private interface Command<T> {
+        T run();
+    }
+
+    private final class Shard implements Runnable {
+        private static final Task<?> STOP = new Task<>(() -> null);
+
+        private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+        // dostępne wyłącznie z wątku shardu
+        private final Map<String, Portfolio> portfolios = new HashMap<>();
+        private final Thread thread;
+
+        Shard(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        <T> CompletableFuture<T> enqueue(Command<T> command) {
+            Task<T> task = new Task<>(command);
+            closeLock.readLock().lock();
+            try {
+                if (closed) {
+                    throw new RejectedExecutionException("Silnik zamknięty");
+                }
+                queue.add(task);
+            } finally {
+                closeLock.readLock().unlock();
+            }
+            return task.future;
+        }
+
+        Portfolio portfolio(String portfolioId) {
+            Portfolio p = portfolios.get(portfolioId);
+            if (p == null) {
+                throw new IllegalArgumentException("Nieznany portfel: " + portfolioId);
+            }
+            return p;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Task<?> task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    rejectRemaining();
+                    return;
+                }
+                if (task == STOP) {
+                    rejectRemaining();
+                    return;
+                }
+                task.run();
+            }
+        }
+
+        // po STOP nic nie powinno zostać (close pod blokadą), ale future nie może zawisnąć
+        private void rejectRemaining() {
+            Task<?> task;
+            while ((task = queue.poll()) != null) {
+                task.future.completeExceptionally(new RejectedExecutionException("Silnik zamknięty"));
+            }
+        }
+    }
+
+    private static final class Task<T> implements Runnable {
+        private final Command<T> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Command<T> command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(command.run());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
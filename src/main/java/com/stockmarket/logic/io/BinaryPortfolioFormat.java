@@ -0,0 +1,246 @@
+package com.stockmarket.logic.io;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.LotCursor;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Binarny format portfela: te same dane co HEADER/ASSET/LOT w formacie tekstowym.
+ *
+ * Plik: MAGIC (int) | VERSION (short) | rekordy. Każdy rekord: typ (byte) | długość treści (int) | treść.
+ * HEADER: cash (double).
+ * ASSET:  typ aktywa (byte, ordinal) | ticker (short długość + UTF-8) | ilość (int) | cena (double)
+ *         [| storage/spread (double) dla COMMODITY/CURRENCY].
+ * LOT:    dzień epoki (int) | ilość (int) | koszt jednostkowy (double).
+ *
+ * Liczby zapisywane są dokładnie (bez zaokrąglania jak w formacie tekstowym).
+ */
+final class BinaryPortfolioFormat {
+    static final int MAGIC = 0x534D5042; // "SMPB"
+    static final short VERSION = 1;
+
+    private static final byte REC_HEADER = 1;
+    private static final byte REC_ASSET = 2;
+    private static final byte REC_LOT = 3;
+
+    private static final int RECORD_PREFIX = 1 + 4;
+    private static final int LOT_LENGTH = 4 + 4 + 8;
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    private BinaryPortfolioFormat() {
+    }
+
+    static void write(FileChannel ch, Portfolio portfolio) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buf.putInt(MAGIC).putShort(VERSION);
+
+        buf.put(REC_HEADER).putInt(8).putDouble(portfolio.getCash());
+
+        for (Position p : portfolio.getPositionsView()) {
+            Asset a = p.getAsset();
+            byte[] ticker = a.getTicker().getBytes(StandardCharsets.UTF_8);
+            if (ticker.length > 0xFFFF) throw new DataIntegrityException("ticker too long");
+
+            boolean hasParam = a.getType() == AssetType.COMMODITY || a.getType() == AssetType.CURRENCY;
+            int length = 1 + 2 + ticker.length + 4 + 8 + (hasParam ? 8 : 0);
+            ensureWritable(ch, buf, RECORD_PREFIX + length);
+
+            buf.put(REC_ASSET).putInt(length)
+                    .put((byte) a.getType().ordinal())
+                    .putShort((short) ticker.length).put(ticker)
+                    .putInt(p.getTotalQuantity())
+                    .putDouble(a.getMarketPrice());
+            if (a.getType() == AssetType.COMMODITY) {
+                buf.putDouble(((Commodity) a).getStorageCostPerUnit());
+            } else if (a.getType() == AssetType.CURRENCY) {
+                buf.putDouble(((Currency) a).getSpread());
+            }
+
+            LotCursor lot = p.lotCursor();
+            while (lot.next()) {
+                ensureWritable(ch, buf, RECORD_PREFIX + LOT_LENGTH);
+                buf.put(REC_LOT).putInt(LOT_LENGTH)
+                        .putInt(lot.epochDay())
+                        .putInt(lot.quantity())
+                        .putDouble(lot.unitPrice());
+            }
+        }
+
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+
+    private static void ensureWritable(FileChannel ch, ByteBuffer buf, int needed) throws IOException {
+        if (buf.remaining() >= needed) {
+            return;
+        }
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Czyta portfel; zakłada, że MAGIC został już sprawdzony i zużyty z kanału.
+     */
+    static Portfolio read(FileChannel ch) throws IOException {
+        Input in = new Input(ch);
+        in.require(2);
+        short version = in.buf.getShort();
+        if (version != VERSION) throw new DataIntegrityException("unsupported version " + version);
+
+        if (!in.hasMore()) throw new DataIntegrityException("empty");
+        in.require(RECORD_PREFIX);
+        byte type = in.buf.get();
+        int length = in.buf.getInt();
+        if (type != REC_HEADER || length != 8) throw new DataIntegrityException("bad header");
+        in.require(8);
+        Portfolio pf = new Portfolio(checkDouble(in.buf.getDouble()));
+
+        Position current = null;
+        int declared = 0;
+        int sum = 0;
+
+        while (in.hasMore()) {
+            in.require(RECORD_PREFIX);
+            type = in.buf.get();
+            length = in.buf.getInt();
+            if (length < 0 || length > BUFFER_SIZE - RECORD_PREFIX) throw new DataIntegrityException("bad record length");
+            in.require(length);
+            int end = in.buf.position() + length;
+
+            if (type == REC_HEADER) throw new DataIntegrityException("header not first");
+
+            if (type == REC_ASSET) {
+                if (current != null) {
+                    if (sum != declared) throw new DataIntegrityException("qty mismatch");
+                    pf.addPositionFromPersistence(current);
+                }
+                if (length < 1 + 2 + 4 + 8) throw new DataIntegrityException("bad asset");
+
+                int ordinal = in.buf.get();
+                AssetType[] types = AssetType.values();
+                if (ordinal < 0 || ordinal >= types.length) throw new DataIntegrityException("bad type");
+                AssetType assetType = types[ordinal];
+
+                int tickerLength = Short.toUnsignedInt(in.buf.getShort());
+                if (length < 1 + 2 + tickerLength + 4 + 8) throw new DataIntegrityException("bad asset");
+                byte[] tickerBytes = new byte[tickerLength];
+                in.buf.get(tickerBytes);
+                String ticker = new String(tickerBytes, StandardCharsets.UTF_8);
+
+                declared = checkInt(in.buf.getInt());
+                double market = checkDouble(in.buf.getDouble());
+                boolean hasParam = in.buf.position() < end;
+
+                Asset asset;
+                if (assetType == AssetType.SHARE) {
+                    if (hasParam) throw new DataIntegrityException("bad asset");
+                    asset = new Share(ticker, market);
+                } else if (assetType == AssetType.COMMODITY) {
+                    if (end - in.buf.position() != 8) throw new DataIntegrityException("commodity needs storage");
+                    asset = new Commodity(ticker, market, checkDouble(in.buf.getDouble()));
+                } else if (assetType == AssetType.CURRENCY) {
+                    if (end - in.buf.position() != 8) throw new DataIntegrityException("currency needs spread");
+                    asset = new Currency(ticker, market, checkDouble(in.buf.getDouble()));
+                } else {
+                    throw new DataIntegrityException("unsupported");
+                }
+
+                current = new Position(asset);
+                sum = 0;
+                continue;
+            }
+
+            if (type == REC_LOT) {
+                if (current == null) throw new DataIntegrityException("lot before asset");
+                if (length != LOT_LENGTH) throw new DataIntegrityException("bad lot");
+
+                int epochDay = in.buf.getInt();
+                try {
+                    LocalDate.ofEpochDay(epochDay);
+                } catch (Exception e) {
+                    throw new DataIntegrityException("bad date", e);
+                }
+                int qty = checkInt(in.buf.getInt());
+                double unit = checkDouble(in.buf.getDouble());
+
+                current.addLot(epochDay, qty, unit);
+                sum += qty;
+                continue;
+            }
+
+            throw new DataIntegrityException("unknown record");
+        }
+
+        if (current != null) {
+            if (sum != declared) throw new DataIntegrityException("qty mismatch");
+            pf.addPositionFromPersistence(current);
+        }
+        return pf;
+    }
+
+    private static int checkInt(int v) {
+        if (v < 0) throw new DataIntegrityException("neg int");
+        return v;
+    }
+
+    private static double checkDouble(double v) {
+        if (v < 0) throw new DataIntegrityException("neg double");
+        return v;
+    }
+
+    /**
+     * Bufor bezpośredni doczytywany z kanału porcjami.
+     */
+    private static final class Input {
+        private final FileChannel ch;
+        private final ByteBuffer buf;
+        private boolean eof;
+
+        Input(FileChannel ch) {
+            this.ch = ch;
+            this.buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.buf.flip();
+        }
+
+        boolean hasMore() throws IOException {
+            if (buf.hasRemaining()) {
+                return true;
+            }
+            fill();
+            return buf.hasRemaining();
+        }
+
+        void require(int n) throws IOException {
+            while (buf.remaining() < n) {
+                if (eof) throw new DataIntegrityException("truncated");
+                fill();
+            }
+        }
+
+        private void fill() throws IOException {
+            buf.compact();
+            int read = ch.read(buf);
+            if (read < 0) {
+                eof = true;
+            }
+            buf.flip();
+        }
+    }
+}
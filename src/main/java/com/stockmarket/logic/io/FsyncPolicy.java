@@ -0,0 +1,13 @@
+package com.stockmarket.logic.io;
+
+/**
+ * Kiedy dziennik transakcji wymusza zapis na dysk (fsync).
+ */
+public enum FsyncPolicy {
+    /** zapis i fsync po każdym rekordzie - najwyższa trwałość, najwyższe opóźnienie */
+    EVERY_RECORD,
+    /** group commit: zapis i fsync raz na grupę rekordów */
+    EVERY_GROUP,
+    /** zapis grupami, fsync tylko przy flush/checkpoint/close - resztę robi system */
+    NEVER
+}
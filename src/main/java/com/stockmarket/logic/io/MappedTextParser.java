@@ -0,0 +1,439 @@
+package com.stockmarket.logic.io;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Parser formatu tekstowego (HEADER|/ASSET|/LOT|) działający bezpośrednio na bajtach
+ * zmapowanego pliku: bez String na linię, bez split(), z ręcznym parsowaniem liczb i dat.
+ *
+ * Walidacja i komunikaty są te same co w PortfolioPersistence.load. Pola, których szybka
+ * ścieżka nie obsługuje dokładnie (np. wykładnik, cyfry spoza ASCII, znaki nie-ASCII),
+ * są parsowane tak jak w formacie tekstowym, przez String.
+ *
+ * Instancja nie jest bezpieczna wątkowo (współdzielone bufory pól); bufor bajtów może być
+ * współdzielony przez wiele instancji, bo czytany jest tylko absolutnie.
+ */
+final class MappedTextParser {
+    private static final byte[] HEADER = ascii("HEADER");
+    private static final byte[] CASH = ascii("CASH");
+    private static final byte[] HEADER_PREFIX = ascii("HEADER|");
+    private static final byte[] ASSET_PREFIX = ascii("ASSET|");
+    private static final byte[] LOT_PREFIX = ascii("LOT|");
+    private static final byte[][] TYPE_NAMES;
+
+    // dzielenie mantysy przez dokładną potęgę 10 daje wynik poprawnie zaokrąglony jak Double.parseDouble
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POW10 = new double[MAX_FAST_DIGITS + 1];
+    private static final long DAYS_0000_TO_1970 = 719528L;
+
+    static {
+        AssetType[] types = AssetType.values();
+        TYPE_NAMES = new byte[types.length][];
+        for (int i = 0; i < types.length; i++) {
+            TYPE_NAMES[i] = ascii(types[i].name());
+        }
+        double p = 1.0;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = p;
+            p *= 10.0;
+        }
+    }
+
+    private final ByteBuffer buf;
+    private final int limit;
+
+    // granice pól bieżącej linii: [fieldStart[i], fieldEnd[i])
+    private int[] fieldStart = new int[8];
+    private int[] fieldEnd = new int[8];
+    private int fieldCount;
+
+    private int lineEnd;
+    private int bodyStart;
+
+    MappedTextParser(ByteBuffer buf) {
+        this.buf = buf;
+        this.limit = buf.limit();
+    }
+
+    /**
+     * Czyta pierwszą linię jako nagłówek. Zwraca gotówkę; początek treści w bodyStart().
+     */
+    double parseHeader() {
+        if (limit == 0) throw new DataIntegrityException("empty");
+        int next = scanLine(0);
+        split(0, lineEnd);
+        if (fieldCount != 3) throw new DataIntegrityException("bad header");
+        if (!fieldEquals(0, HEADER) || !fieldEquals(1, CASH)) throw new DataIntegrityException("bad header");
+        bodyStart = next;
+        return parseDouble(2);
+    }
+
+    int bodyStart() {
+        return bodyStart;
+    }
+
+    /**
+     * Parsuje linie z zakresu [from, to). Każda domknięta pozycja (po sprawdzeniu zgodności ilości)
+     * trafia do sink - także ostatnia w zakresie, więc zakresy muszą zaczynać się od linii ASSET|
+     * (albo od początku treści).
+     */
+    void parseBlocks(int from, int to, Consumer<Position> sink) {
+        Position current = null;
+        int declared = 0;
+        int sum = 0;
+
+        int pos = from;
+        while (pos < to) {
+            int next = scanLine(pos);
+            int ls = pos;
+            int le = lineEnd;
+            pos = next;
+
+            if (isBlank(ls, le)) continue;
+
+            if (startsWith(ls, le, HEADER_PREFIX)) throw new DataIntegrityException("header not first");
+
+            if (startsWith(ls, le, ASSET_PREFIX)) {
+                if (current != null) {
+                    if (sum != declared) throw new DataIntegrityException("qty mismatch");
+                    sink.accept(current);
+                }
+
+                split(ls, le);
+                if (fieldCount < 5) throw new DataIntegrityException("bad asset");
+
+                AssetType type = parseType(1);
+                String ticker = fieldString(2);
+                declared = parseInt(3);
+                double market = parseDouble(4);
+
+                Asset asset;
+                if (type == AssetType.SHARE) {
+                    asset = new Share(ticker, market);
+                } else if (type == AssetType.COMMODITY) {
+                    if (fieldCount != 6) throw new DataIntegrityException("commodity needs storage");
+                    asset = new Commodity(ticker, market, parseDouble(5));
+                } else if (type == AssetType.CURRENCY) {
+                    if (fieldCount != 6) throw new DataIntegrityException("currency needs spread");
+                    asset = new Currency(ticker, market, parseDouble(5));
+                } else {
+                    throw new DataIntegrityException("unsupported");
+                }
+
+                current = new Position(asset);
+                sum = 0;
+                continue;
+            }
+
+            if (startsWith(ls, le, LOT_PREFIX)) {
+                if (current == null) throw new DataIntegrityException("lot before asset");
+
+                split(ls, le);
+                if (fieldCount != 4) throw new DataIntegrityException("bad lot");
+
+                int epochDay = parseEpochDay(1);
+                int qty = parseInt(2);
+                double unit = parseDouble(3);
+
+                current.addLot(epochDay, qty, unit);
+                sum += qty;
+                continue;
+            }
+
+            throw new DataIntegrityException("unknown line");
+        }
+
+        if (current != null) {
+            if (sum != declared) throw new DataIntegrityException("qty mismatch");
+            sink.accept(current);
+        }
+    }
+
+    /**
+     * Szuka końca linii od pos (jak BufferedReader: \n, \r albo \r\n). Ustawia lineEnd,
+     * zwraca początek następnej linii.
+     */
+    private int scanLine(int pos) {
+        int i = pos;
+        while (i < limit) {
+            byte b = buf.get(i);
+            if (b == '\n') {
+                lineEnd = i;
+                return i + 1;
+            }
+            if (b == '\r') {
+                lineEnd = i;
+                return (i + 1 < limit && buf.get(i + 1) == '\n') ? i + 2 : i + 1;
+            }
+            i++;
+        }
+        lineEnd = limit;
+        return limit;
+    }
+
+    // jak String.split("\\|"): puste pola końcowe są odrzucane
+    private void split(int ls, int le) {
+        fieldCount = 0;
+        int start = ls;
+        for (int i = ls; i < le; i++) {
+            if (buf.get(i) == '|') {
+                addField(start, i);
+                start = i + 1;
+            }
+        }
+        addField(start, le);
+        if (fieldCount == 1) {
+            return; // brak separatora - cała linia jako jedno pole
+        }
+        while (fieldCount > 0 && fieldStart[fieldCount - 1] == fieldEnd[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private boolean isBlank(int ls, int le) {
+        for (int i = ls; i < le; i++) {
+            byte b = buf.get(i);
+            if (b < 0) {
+                return sliceString(ls, le).isBlank(); // białe znaki spoza ASCII
+            }
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int ls, int le, byte[] prefix) {
+        if (le - ls < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(ls + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fieldEquals(int field, byte[] expected) {
+        int s = fieldStart[field];
+        if (fieldEnd[field] - s != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.get(s + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private AssetType parseType(int field) {
+        AssetType[] types = AssetType.values();
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if (fieldEquals(field, TYPE_NAMES[i])) {
+                return types[i];
+            }
+        }
+        throw new DataIntegrityException("bad type");
+    }
+
+    private int parseInt(int field) {
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        int i = s;
+        boolean negative = false;
+        if (i < e && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        int digits = e - i;
+        if (digits > 0 && digits <= 9) {
+            int v = 0;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) {
+                    return parseIntSlow(s, e);
+                }
+                v = v * 10 + d;
+            }
+            if (negative && v != 0) throw new DataIntegrityException("neg int");
+            return v;
+        }
+        return parseIntSlow(s, e);
+    }
+
+    private int parseIntSlow(int s, int e) {
+        try {
+            int v = Integer.parseInt(sliceString(s, e));
+            if (v < 0) throw new DataIntegrityException("neg int");
+            return v;
+        } catch (NumberFormatException ex) {
+            throw new DataIntegrityException("bad int", ex);
+        }
+    }
+
+    private double parseDouble(int field) {
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        int i = s;
+        boolean negative = false;
+        if (i < e && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        for (; i < e; i++) {
+            byte b = buf.get(i);
+            if (b == '.' && !dot) {
+                dot = true;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9 || digits == MAX_FAST_DIGITS) {
+                return parseDoubleSlow(s, e);
+            }
+            mantissa = mantissa * 10 + d;
+            digits++;
+            if (dot) {
+                fractionDigits++;
+            }
+        }
+        if (digits == 0) {
+            return parseDoubleSlow(s, e);
+        }
+
+        double v = mantissa / POW10[fractionDigits];
+        if (negative) {
+            v = -v;
+        }
+        if (v < 0) throw new DataIntegrityException("neg double");
+        return v;
+    }
+
+    private double parseDoubleSlow(int s, int e) {
+        try {
+            double v = Double.parseDouble(sliceString(s, e));
+            if (v < 0) throw new DataIntegrityException("neg double");
+            return v;
+        } catch (NumberFormatException ex) {
+            throw new DataIntegrityException("bad double", ex);
+        }
+    }
+
+    /**
+     * Data ISO (yyyy-MM-dd) jako dzień epoki, ze ścisłą walidacją jak LocalDate.parse.
+     */
+    private int parseEpochDay(int field) {
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        if (e - s == 10 && buf.get(s + 4) == '-' && buf.get(s + 7) == '-') {
+            int year = digits(s, 4);
+            int month = digits(s + 5, 2);
+            int day = digits(s + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+                    throw new DataIntegrityException("bad date");
+                }
+                return (int) toEpochDay(year, month, day);
+            }
+        }
+        try {
+            return (int) LocalDate.parse(sliceString(s, e)).toEpochDay();
+        } catch (Exception ex) {
+            throw new DataIntegrityException("bad date", ex);
+        }
+    }
+
+    private int digits(int s, int n) {
+        int v = 0;
+        for (int i = 0; i < n; i++) {
+            int d = buf.get(s + i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeap(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // ten sam algorytm co LocalDate.toEpochDay (rok >= 0)
+    private static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeap(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private String fieldString(int field) {
+        return sliceString(fieldStart[field], fieldEnd[field]);
+    }
+
+    private String sliceString(int s, int e) {
+        ByteBuffer slice = buf.duplicate();
+        slice.limit(e).position(s);
+        try {
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(slice);
+            return chars.toString();
+        } catch (CharacterCodingException ex) {
+            throw new DataIntegrityException("load failed", ex);
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
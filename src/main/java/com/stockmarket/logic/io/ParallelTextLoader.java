@@ -0,0 +1,133 @@
+package com.stockmarket.logic.io;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Równoległy odczyt formatu tekstowego: treść dzielona jest na fragmenty na granicach linii
+ * ASSET|, każdy fragment parsowany i walidowany osobnym MappedTextParser na puli fork-join.
+ *
+ * Scalanie idzie w kolejności pliku: pozycje fragmentu są dodawane przez
+ * addPositionFromPersistence, a ewentualny błąd fragmentu rzucany jest dopiero po nich -
+ * dokładnie tak, jak zobaczyłby go odczyt sekwencyjny (łącznie z duplikatami tickerów).
+ */
+final class ParallelTextLoader {
+    private static final byte[] ASSET_LINE = "\nASSET|".getBytes(StandardCharsets.US_ASCII);
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_BYTES = 64 * 1024;
+
+    private ParallelTextLoader() {
+    }
+
+    static Portfolio load(ByteBuffer buf, ForkJoinPool pool) {
+        MappedTextParser headerParser = new MappedTextParser(buf.duplicate());
+        Portfolio pf = new Portfolio(headerParser.parseHeader());
+
+        int[] bounds = chunkBounds(buf, headerParser.bodyStart(), buf.limit(), pool.getParallelism());
+        Chunk[] chunks = new Chunk[bounds.length - 1];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk(bounds[i], bounds[i + 1]);
+        }
+        pool.invoke(new ParseTask(buf, chunks, 0, chunks.length));
+
+        for (Chunk c : chunks) {
+            for (Position p : c.positions) {
+                pf.addPositionFromPersistence(p);
+            }
+            if (c.error != null) {
+                throw c.error;
+            }
+        }
+        return pf;
+    }
+
+    // granice fragmentów: początek treści, kolejne początki linii ASSET| w przybliżeniu co `step`, koniec
+    private static int[] chunkBounds(ByteBuffer buf, int from, int to, int parallelism) {
+        int target = Math.max(1, parallelism * CHUNKS_PER_THREAD);
+        int step = Math.max(MIN_CHUNK_BYTES, (to - from) / target);
+
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(from);
+        int pos = from + step;
+        while (pos < to) {
+            int next = nextAssetLine(buf, pos, to);
+            if (next < 0) {
+                break;
+            }
+            bounds.add(next);
+            pos = next + step;
+        }
+        bounds.add(to);
+
+        int[] result = new int[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // początek pierwszej linii ASSET| zaczynającej się po pozycji `from`, albo -1
+    private static int nextAssetLine(ByteBuffer buf, int from, int to) {
+        for (int i = from - 1; i + ASSET_LINE.length <= to; i++) {
+            if (buf.get(i) != '\n') {
+                continue;
+            }
+            int k = 1;
+            while (k < ASSET_LINE.length && buf.get(i + k) == ASSET_LINE[k]) {
+                k++;
+            }
+            if (k == ASSET_LINE.length) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Chunk {
+        private final int from;
+        private final int to;
+        private final List<Position> positions = new ArrayList<>();
+        private RuntimeException error;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class ParseTask extends RecursiveAction {
+        private final ByteBuffer buf;
+        private final Chunk[] chunks;
+        private final int lo;
+        private final int hi;
+
+        ParseTask(ByteBuffer buf, Chunk[] chunks, int lo, int hi) {
+            this.buf = buf;
+            this.chunks = chunks;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                Chunk c = chunks[lo];
+                try {
+                    new MappedTextParser(buf.duplicate()).parseBlocks(c.from, c.to, c.positions::add);
+                } catch (RuntimeException e) {
+                    c.error = e;
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ParseTask(buf, chunks, lo, mid), new ParseTask(buf, chunks, mid, hi));
+        }
+    }
+}
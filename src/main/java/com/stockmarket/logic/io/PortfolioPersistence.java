@@ -7,30 +7,42 @@ import com.stockmarket.domain.Currency;
 import com.stockmarket.domain.Share;
 import com.stockmarket.logic.Portfolio;
 import com.stockmarket.logic.Position;
-import com.stockmarket.logic.PurchaseLot;
+import com.stockmarket.logic.LotCursor;
 import com.stockmarket.logic.exceptions.DataIntegrityException;
+import com.stockmarket.logic.metrics.Histogram;
+import com.stockmarket.logic.metrics.MetricsRegistry;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
 
 public class PortfolioPersistence {
     private static final String SEP = "\\|";
     private static final java.util.Locale LOCALE = java.util.Locale.US;
 
+    private static final Histogram SAVE_NANOS = MetricsRegistry.global().histogram("persistence.save.nanos");
+    private static final Histogram LOAD_NANOS = MetricsRegistry.global().histogram("persistence.load.nanos");
+
     public void save(Path path, Portfolio portfolio) {
         if (path == null) throw new IllegalArgumentException("path null");
         if (portfolio == null) throw new IllegalArgumentException("portfolio null");
 
+        long start = SAVE_NANOS.startTimer();
         try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
             w.write("HEADER|CASH|" + String.format(LOCALE, "%.2f", portfolio.getCash()));
             w.newLine();
 
-            for (Position p : portfolio.getPositionsSnapshot()) {
+            for (Position p : portfolio.getPositionsView()) {
                 Asset a = p.getAsset();
                 int qty = p.getTotalQuantity();
 
@@ -50,110 +62,228 @@ public class PortfolioPersistence {
                 w.write(sb.toString());
                 w.newLine();
 
-                for (PurchaseLot lot : p.getLotsSnapshot()) {
-                    w.write("LOT|" + lot.getPurchaseDate()
-                            + "|" + lot.getQuantity()
-                            + "|" + String.format(LOCALE, "%.6f", lot.getUnitPrice()));
+                LotCursor lot = p.lotCursor();
+                while (lot.next()) {
+                    w.write("LOT|" + lot.purchaseDate()
+                            + "|" + lot.quantity()
+                            + "|" + String.format(LOCALE, "%.6f", lot.unitPrice()));
                     w.newLine();
                 }
             }
         } catch (IOException e) {
             throw new DataIntegrityException("save failed", e);
+        } finally {
+            SAVE_NANOS.stopTimer(start);
         }
     }
 
-    public Portfolio load(Path path) {
+    /**
+     * Zapis w formacie binarnym (BinaryPortfolioFormat) przez FileChannel. Odczyt przez load().
+     */
+    public void saveBinary(Path path, Portfolio portfolio) {
         if (path == null) throw new IllegalArgumentException("path null");
+        if (portfolio == null) throw new IllegalArgumentException("portfolio null");
 
-        try (BufferedReader r = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            String line = r.readLine();
-            if (line == null) throw new DataIntegrityException("empty");
-
-            double cash = parseHeader(line);
-            Portfolio pf = new Portfolio(cash);
-
-            Position current = null;
-            int declared = 0;
-            int sum = 0;
-
-            while ((line = r.readLine()) != null) {
-                if (line.isBlank()) continue;
-
-                if (line.startsWith("HEADER|")) throw new DataIntegrityException("header not first");
-
-                if (line.startsWith("ASSET|")) {
-                    if (current != null) {
-                        if (sum != declared) throw new DataIntegrityException("qty mismatch");
-                        pf.addPositionFromPersistence(current);
-                    }
-
-                    String[] p = line.split(SEP);
-                    if (p.length < 5) throw new DataIntegrityException("bad asset");
-
-                    AssetType type;
-                    try {
-                        type = AssetType.valueOf(p[1]);
-                    } catch (Exception e) {
-                        throw new DataIntegrityException("bad type", e);
-                    }
-
-                    String ticker = p[2];
-                    declared = parseInt(p[3]);
-                    double market = parseDouble(p[4]);
-
-                    Asset asset;
-                    if (type == AssetType.SHARE) {
-                        asset = new Share(ticker, market);
-                    } else if (type == AssetType.COMMODITY) {
-                        if (p.length != 6) throw new DataIntegrityException("commodity needs storage");
-                        asset = new Commodity(ticker, market, parseDouble(p[5]));
-                    } else if (type == AssetType.CURRENCY) {
-                        if (p.length != 6) throw new DataIntegrityException("currency needs spread");
-                        asset = new Currency(ticker, market, parseDouble(p[5]));
-                    } else {
-                        throw new DataIntegrityException("unsupported");
-                    }
-
-                    current = new Position(asset);
-                    sum = 0;
-                    continue;
-                }
+        long start = SAVE_NANOS.startTimer();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinaryPortfolioFormat.write(ch, portfolio);
+        } catch (IOException e) {
+            throw new DataIntegrityException("save failed", e);
+        } finally {
+            SAVE_NANOS.stopTimer(start);
+        }
+    }
 
-                if (line.startsWith("LOT|")) {
-                    if (current == null) throw new DataIntegrityException("lot before asset");
+    /**
+     * Odczyt portfela; format (tekstowy albo binarny) rozpoznawany po nagłówku pliku.
+     */
+    public Portfolio load(Path path) {
+        if (path == null) throw new IllegalArgumentException("path null");
 
-                    String[] p = line.split(SEP);
-                    if (p.length != 4) throw new DataIntegrityException("bad lot");
+        long start = LOAD_NANOS.startTimer();
+        try {
+            return loadAutoDetected(path);
+        } finally {
+            LOAD_NANOS.stopTimer(start);
+        }
+    }
 
-                    LocalDate date;
-                    try {
-                        date = LocalDate.parse(p[1]);
-                    } catch (Exception e) {
-                        throw new DataIntegrityException("bad date", e);
-                    }
+    private Portfolio loadAutoDetected(Path path) {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && ch.read(magic) >= 0) {
+                // doczytanie do 4 bajtów
+            }
+            if (!magic.hasRemaining() && magic.getInt(0) == BinaryPortfolioFormat.MAGIC) {
+                return BinaryPortfolioFormat.read(ch);
+            }
+            ch.position(0);
+            return loadText(new BufferedReader(Channels.newReader(ch, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new DataIntegrityException("load failed", e);
+        }
+    }
 
-                    int qty = parseInt(p[2]);
-                    double unit = parseDouble(p[3]);
+    /**
+     * Szybki odczyt formatu tekstowego: plik mapowany do pamięci (MappedByteBuffer) i parsowany
+     * w miejscu przez MappedTextParser. Walidacja identyczna jak w load(). Plik binarny albo
+     * większy niż 2 GB jest czytany zwykłym load().
+     */
+    public Portfolio loadMapped(Path path) {
+        if (path == null) throw new IllegalArgumentException("path null");
 
-                    current.addLot(date, qty, unit);
-                    sum += qty;
-                    continue;
-                }
+        long start = LOAD_NANOS.startTimer();
+        try {
+            return loadMappedText(path);
+        } finally {
+            LOAD_NANOS.stopTimer(start);
+        }
+    }
 
-                throw new DataIntegrityException("unknown line");
+    private Portfolio loadMappedText(Path path) {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                return loadAutoDetected(path);
             }
-
-            if (current != null) {
-                if (sum != declared) throw new DataIntegrityException("qty mismatch");
-                pf.addPositionFromPersistence(current);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size >= 4 && buf.getInt(0) == BinaryPortfolioFormat.MAGIC) {
+                return loadAutoDetected(path);
             }
 
+            MappedTextParser parser = new MappedTextParser(buf);
+            Portfolio pf = new Portfolio(parser.parseHeader());
+            parser.parseBlocks(parser.bodyStart(), (int) size, pf::addPositionFromPersistence);
             return pf;
         } catch (IOException e) {
             throw new DataIntegrityException("load failed", e);
         }
     }
 
+    public Portfolio loadParallel(Path path) {
+        return loadParallel(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Równoległy odczyt formatu tekstowego (ParallelTextLoader): bloki ASSET| parsowane na puli
+     * fork-join, scalane w kolejności pliku. Błędy i kontrola duplikatów jak w load().
+     * Plik binarny albo większy niż 2 GB jest czytany zwykłym load().
+     */
+    public Portfolio loadParallel(Path path, ForkJoinPool pool) {
+        if (path == null) throw new IllegalArgumentException("path null");
+        if (pool == null) throw new IllegalArgumentException("pool null");
+
+        long start = LOAD_NANOS.startTimer();
+        try {
+            return loadParallelText(path, pool);
+        } finally {
+            LOAD_NANOS.stopTimer(start);
+        }
+    }
+
+    private Portfolio loadParallelText(Path path, ForkJoinPool pool) {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                return loadAutoDetected(path);
+            }
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size >= 4 && buf.getInt(0) == BinaryPortfolioFormat.MAGIC) {
+                return loadAutoDetected(path);
+            }
+            return ParallelTextLoader.load(buf, pool);
+        } catch (IOException e) {
+            throw new DataIntegrityException("load failed", e);
+        }
+    }
+
+    private Portfolio loadText(BufferedReader r) throws IOException {
+        String line = r.readLine();
+        if (line == null) throw new DataIntegrityException("empty");
+
+        double cash = parseHeader(line);
+        Portfolio pf = new Portfolio(cash);
+
+        Position current = null;
+        int declared = 0;
+        int sum = 0;
+
+        while ((line = r.readLine()) != null) {
+            if (line.isBlank()) continue;
+
+            if (line.startsWith("HEADER|")) throw new DataIntegrityException("header not first");
+
+            if (line.startsWith("ASSET|")) {
+                if (current != null) {
+                    if (sum != declared) throw new DataIntegrityException("qty mismatch");
+                    pf.addPositionFromPersistence(current);
+                }
+
+                String[] p = line.split(SEP);
+                if (p.length < 5) throw new DataIntegrityException("bad asset");
+
+                AssetType type;
+                try {
+                    type = AssetType.valueOf(p[1]);
+                } catch (Exception e) {
+                    throw new DataIntegrityException("bad type", e);
+                }
+
+                String ticker = p[2];
+                declared = parseInt(p[3]);
+                double market = parseDouble(p[4]);
+
+                Asset asset;
+                if (type == AssetType.SHARE) {
+                    asset = new Share(ticker, market);
+                } else if (type == AssetType.COMMODITY) {
+                    if (p.length != 6) throw new DataIntegrityException("commodity needs storage");
+                    asset = new Commodity(ticker, market, parseDouble(p[5]));
+                } else if (type == AssetType.CURRENCY) {
+                    if (p.length != 6) throw new DataIntegrityException("currency needs spread");
+                    asset = new Currency(ticker, market, parseDouble(p[5]));
+                } else {
+                    throw new DataIntegrityException("unsupported");
+                }
+
+                current = new Position(asset);
+                sum = 0;
+                continue;
+            }
+
+            if (line.startsWith("LOT|")) {
+                if (current == null) throw new DataIntegrityException("lot before asset");
+
+                String[] p = line.split(SEP);
+                if (p.length != 4) throw new DataIntegrityException("bad lot");
+
+                LocalDate date;
+                try {
+                    date = LocalDate.parse(p[1]);
+                } catch (Exception e) {
+                    throw new DataIntegrityException("bad date", e);
+                }
+
+                int qty = parseInt(p[2]);
+                double unit = parseDouble(p[3]);
+
+                current.addLot(date, qty, unit);
+                sum += qty;
+                continue;
+            }
+
+            throw new DataIntegrityException("unknown line");
+        }
+
+        if (current != null) {
+            if (sum != declared) throw new DataIntegrityException("qty mismatch");
+            pf.addPositionFromPersistence(current);
+        }
+
+        return pf;
+    }
+
     private double parseHeader(String line) {
         String[] p = line.split(SEP);
         if (p.length != 3) throw new DataIntegrityException("bad header");
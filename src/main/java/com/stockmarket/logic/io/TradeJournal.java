@@ -0,0 +1,801 @@
+package com.stockmarket.logic.io;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioListener;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.TimeInForce;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Dziennik transakcji (write-ahead) z okresowymi checkpointami.
+ *
+ * Każde executeBuy/executeSell, złożenie i wykonanie zlecenia, zmiana watchlisty oraz przesunięcie
+ * zegara symulacji (Portfolio.advanceDate) dopisuje
+ * jeden rekord: długość (int) | CRC32 (int) | typ (byte) | treść. Rekordy trafiają najpierw do
+ * bufora i są zapisywane grupami (groupSize), fsync wg FsyncPolicy.
+ *
+ * Checkpoint zapisuje pełny snapshot (format binarny) jako snapshot-N.bin i zaczyna nowy
+ * journal-N.log od rekordów stanu, którego snapshot nie obejmuje (licznik sekwencji zleceń,
+ * data zegara, watchlista, zlecenia oczekujące). Odtworzenie: najnowsza generacja N z kompletną parą plików, snapshot + odtworzenie
+ * ogona dziennika aż do pierwszego uciętego/uszkodzonego rekordu, potem nowy checkpoint.
+ *
+ * Błąd zapisu w trakcie dziennikowania mutacji nie jest rzucany z listenera (mutacja portfela już
+ * się odbyła): dziennik przechodzi w stan awarii (isFailed(), getFailure()), przestaje zapisywać,
+ * a flush()/close() zgłaszają awarię. Udany checkpoint() zapisuje pełny stan i kończy awarię.
+ * Nieudany checkpoint wycofuje nową generację i dziennik pisze dalej do poprzedniej.
+ *
+ * Aktywacja zleceń przez triggery cenowe nie jest zapisywana - po odtworzeniu zlecenia wracają
+ * z pierwotnym snapshotem ceny.
+ */
+public class TradeJournal implements Closeable {
+    private static final int JOURNAL_MAGIC = 0x534D504A; // "SMPJ"
+    private static final int JOURNAL_HEADER = 4 + 8;
+    private static final int RECORD_PREFIX = 4 + 4;
+    private static final int BUFFER_SIZE = 128 * 1024;
+    // rekord bez tickera; ticker ma osobno co najwyżej 0xFFFF bajtów
+    private static final int MAX_FIXED_RECORD = 96;
+    // brak daty ważności w rekordzie ORDER_PLACED (GTC, IOC)
+    private static final int NO_EXPIRY = Integer.MIN_VALUE;
+
+    private static final byte BUY = 1;
+    private static final byte SELL = 2;
+    private static final byte ORDER_PLACED = 3;
+    private static final byte ORDER_EXECUTED = 4;
+    private static final byte WATCH_ADD = 5;
+    private static final byte WATCH_REMOVE = 6;
+    private static final byte ORDER_CANCELLED = 7;
+    private static final byte ORDER_AMENDED = 8;
+    // licznik sekwencji zleceń na początku generacji (checkpoint nie przenosi wykonanych/anulowanych)
+    private static final byte ORDER_SEQUENCE = 9;
+    // bieżąca data zegara symulacji
+    private static final byte CLOCK = 10;
+    // wygaśnięcie (Portfolio.advanceDate) i odrzucenie zlecenia zapisywane są jako ORDER_CANCELLED
+
+    private final Path dir;
+    private final Portfolio portfolio;
+    private final FsyncPolicy policy;
+    private final int groupSize;
+    private final PortfolioListener recorder = new Recorder();
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    // dokąd opróżniany jest pełny bufor (w czasie checkpointu - nowy plik dziennika)
+    private FileChannel sink;
+    private long generation;
+    private int pendingRecords;
+    private boolean closed;
+    // null = dziennik sprawny; inaczej pierwszy błąd zapisu, od którego rekordy są pomijane
+    private DataIntegrityException failure;
+
+    private TradeJournal(Path dir, Portfolio portfolio, FsyncPolicy policy, int groupSize, long generation) {
+        if (policy == null) throw new IllegalArgumentException("policy null");
+        if (groupSize <= 0) throw new IllegalArgumentException("groupSize <= 0");
+        this.dir = dir;
+        this.portfolio = portfolio;
+        this.policy = policy;
+        this.groupSize = groupSize;
+        this.generation = generation;
+    }
+
+    /**
+     * Zaczyna dziennikowanie portfela: od razu robi checkpoint (nowa generacja w dir).
+     */
+    public static TradeJournal create(Path dir, Portfolio portfolio, FsyncPolicy policy, int groupSize) {
+        if (dir == null) throw new IllegalArgumentException("dir null");
+        if (portfolio == null) throw new IllegalArgumentException("portfolio null");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new DataIntegrityException("journal init failed", e);
+        }
+        TradeJournal journal = new TradeJournal(dir, portfolio, policy, groupSize, Math.max(0, latestGeneration(dir)));
+        journal.checkpoint();
+        portfolio.addListener(journal.recorder);
+        return journal;
+    }
+
+    /**
+     * Odtwarza portfel z najnowszego snapshotu i ogona dziennika, po czym robi checkpoint
+     * i dalej dziennikuje odtworzony portfel (getPortfolio()).
+     */
+    public static TradeJournal recover(Path dir, FsyncPolicy policy, int groupSize) {
+        if (dir == null) throw new IllegalArgumentException("dir null");
+        long gen = latestGeneration(dir);
+        if (gen < 0) throw new DataIntegrityException("no checkpoint in " + dir);
+
+        Portfolio pf = new PortfolioPersistence().load(snapshotPath(dir, gen));
+        Replay replay = new Replay(pf);
+        try (FileChannel ch = FileChannel.open(journalPath(dir, gen), StandardOpenOption.READ)) {
+            replay.run(ch, gen);
+        } catch (IOException e) {
+            throw new DataIntegrityException("journal read failed", e);
+        }
+
+        TradeJournal journal = new TradeJournal(dir, pf, policy, groupSize, gen);
+        journal.checkpoint();
+        pf.addListener(journal.recorder);
+        return journal;
+    }
+
+    public Portfolio getPortfolio() {
+        return portfolio;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * true, jeśli od ostatniego udanego checkpointu nie udało się zapisać któregoś rekordu -
+     * zmiany portfela od tego momentu nie są w dzienniku.
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Pierwszy błąd zapisu od ostatniego udanego checkpointu albo null.
+     */
+    public DataIntegrityException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Kompaktuje dziennik do pełnego snapshotu i zaczyna nową generację. Kończy stan awarii -
+     * snapshot obejmuje też zmiany, których nie udało się zapisać w dzienniku.
+     *
+     * @throws DataIntegrityException checkpoint się nie udał; dziennik zostaje przy poprzedniej generacji
+     */
+    public void checkpoint() {
+        ensureOpen();
+        long next = generation + 1;
+        Path snapshotTmp = tmp(snapshotPath(dir, next));
+        Path journalTmp = tmp(journalPath(dir, next));
+        FileChannel opened;
+        try {
+            if (channel != null && failure == null) {
+                try {
+                    commit(true);
+                } catch (IOException e) {
+                    fail(new DataIntegrityException("journal write failed", e));
+                }
+            }
+
+            try (FileChannel ch = FileChannel.open(snapshotTmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BinaryPortfolioFormat.write(ch, portfolio);
+                ch.force(true);
+            }
+            Files.move(snapshotTmp, snapshotPath(dir, next), StandardCopyOption.ATOMIC_MOVE);
+
+            try (FileChannel ch = FileChannel.open(journalTmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                pending.clear();
+                sink = ch;
+                pending.putInt(JOURNAL_MAGIC).putLong(next);
+                appendOrderSequence(portfolio.peekNextOrderSequence());
+                if (portfolio.getCurrentDate() != null) {
+                    appendClock(portfolio.getCurrentDate());
+                }
+                for (String ticker : portfolio.getWatchlistView()) {
+                    appendWatch(WATCH_ADD, ticker);
+                }
+                for (Order o : portfolio.getPendingOrdersSnapshot()) {
+                    appendOrderPlaced(o);
+                }
+                drain(ch);
+                ch.force(true);
+            }
+            Files.move(journalTmp, journalPath(dir, next), StandardCopyOption.ATOMIC_MOVE);
+            opened = FileChannel.open(journalPath(dir, next), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            abortCheckpoint(next, snapshotTmp, journalTmp);
+            throw new DataIntegrityException("checkpoint failed", e);
+        }
+
+        // od tu nowa generacja jest kompletna i aktualna
+        FileChannel previousChannel = channel;
+        channel = opened;
+        sink = opened;
+        pendingRecords = 0;
+        failure = null;
+        long previous = generation;
+        generation = next;
+        try {
+            if (previousChannel != null) {
+                previousChannel.close();
+            }
+            for (long g = previous; g >= 0 && Files.exists(snapshotPath(dir, g)); g--) {
+                Files.deleteIfExists(journalPath(dir, g));
+                Files.deleteIfExists(snapshotPath(dir, g));
+            }
+        } catch (IOException e) {
+            // pozostałości starszych generacji nie przeszkadzają odtworzeniu; usunie je następny checkpoint
+        }
+    }
+
+    // wraca do poprzedniej generacji: bufor i ujście jak przed checkpointem, pliki nowej generacji usunięte
+    private void abortCheckpoint(long next, Path snapshotTmp, Path journalTmp) {
+        pending.clear();
+        pendingRecords = 0;
+        sink = channel;
+        try {
+            Files.deleteIfExists(snapshotTmp);
+            Files.deleteIfExists(journalTmp);
+            // najpierw snapshot: bez niego para nowej generacji jest niekompletna i odtworzenie jej nie wybierze
+            Files.deleteIfExists(snapshotPath(dir, next));
+        } catch (IOException e) {
+            fail(new DataIntegrityException("checkpoint rollback failed", e));
+            return;
+        }
+        try {
+            Files.deleteIfExists(journalPath(dir, next));
+        } catch (IOException e) {
+            // sam dziennik bez snapshotu jest pomijany przy odtwarzaniu
+        }
+    }
+
+    /**
+     * Zapisuje zbuforowane rekordy i wymusza fsync niezależnie od polityki.
+     */
+    public void flush() {
+        ensureOpen();
+        requireHealthy();
+        try {
+            commit(true);
+        } catch (IOException e) {
+            throw new DataIntegrityException("journal write failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        portfolio.removeListener(recorder);
+        try {
+            if (failure == null) {
+                commit(true);
+            }
+            channel.close();
+        } catch (IOException e) {
+            throw new DataIntegrityException("journal close failed", e);
+        } finally {
+            closed = true;
+        }
+        requireHealthy();
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Dziennik zamknięty");
+    }
+
+    private void requireHealthy() {
+        if (failure != null) {
+            throw new DataIntegrityException("journal failed since last checkpoint", failure);
+        }
+    }
+
+    private void fail(DataIntegrityException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        // rekordy po awarii i tak nie trafią do pliku - bufor tylko dla kolejnego checkpointu
+        pending.clear();
+        pendingRecords = 0;
+    }
+
+    private void afterAppend() {
+        pendingRecords++;
+        if (policy == FsyncPolicy.EVERY_RECORD || pendingRecords >= groupSize) {
+            try {
+                commit(policy != FsyncPolicy.NEVER);
+            } catch (IOException e) {
+                throw new DataIntegrityException("journal write failed", e);
+            }
+        }
+    }
+
+    private void commit(boolean force) throws IOException {
+        drain(channel);
+        if (force) {
+            channel.force(false);
+        }
+        pendingRecords = 0;
+    }
+
+    private void drain(FileChannel target) throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            target.write(pending);
+        }
+        pending.clear();
+    }
+
+    private void ensureCapacity(int needed) {
+        if (pending.remaining() >= needed) {
+            return;
+        }
+        try {
+            drain(sink);
+        } catch (IOException e) {
+            throw new DataIntegrityException("journal write failed", e);
+        }
+    }
+
+    // --- kodowanie rekordów ---
+
+    private int beginRecord(byte type, int variableBytes) {
+        ensureCapacity(MAX_FIXED_RECORD + variableBytes);
+        int start = pending.position();
+        pending.position(start + RECORD_PREFIX);
+        pending.put(type);
+        return start;
+    }
+
+    private void endRecord(int start) {
+        int end = pending.position();
+        ByteBuffer body = pending.duplicate();
+        body.position(start + RECORD_PREFIX).limit(end);
+        crc.reset();
+        crc.update(body);
+        pending.putInt(start, end - start - RECORD_PREFIX);
+        pending.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void appendTrade(byte type, Asset asset, int quantity, LocalDate date, double unitPrice) {
+        byte[] ticker = tickerBytes(asset.getTicker());
+        int start = beginRecord(type, ticker.length);
+        putAsset(asset, ticker);
+        pending.putInt(quantity).putInt(toEpochDay(date)).putDouble(unitPrice);
+        endRecord(start);
+    }
+
+    private void appendOrderPlaced(Order o) {
+        byte[] ticker = tickerBytes(o.getAsset().getTicker());
+        int start = beginRecord(ORDER_PLACED, ticker.length);
+        pending.putLong(o.getId()).putLong(o.getSequence()).put((byte) o.getSide().ordinal());
+        putAsset(o.getAsset(), ticker);
+        pending.putInt(o.getQuantity())
+                .putDouble(o.getLimitPrice())
+                .putDouble(o.getMarketPriceSnapshot())
+                .putInt(toEpochDay(o.getDate()))
+                .put((byte) o.getTimeInForce().ordinal())
+                .putInt(o.getExpiryDate() == null ? NO_EXPIRY : toEpochDay(o.getExpiryDate()));
+        endRecord(start);
+    }
+
+    private void appendOrderSequence(long next) {
+        int start = beginRecord(ORDER_SEQUENCE, 0);
+        pending.putLong(next);
+        endRecord(start);
+    }
+
+    private void appendClock(LocalDate date) {
+        int start = beginRecord(CLOCK, 0);
+        pending.putInt(toEpochDay(date));
+        endRecord(start);
+    }
+
+    private void appendOrderExecuted(Order o) {
+        int start = beginRecord(ORDER_EXECUTED, 0);
+        pending.putLong(o.getId());
+        endRecord(start);
+    }
+
+    private void appendOrderCancelled(Order o) {
+        int start = beginRecord(ORDER_CANCELLED, 0);
+        pending.putLong(o.getId());
+        endRecord(start);
+    }
+
+    private void appendOrderAmended(Order o) {
+        int start = beginRecord(ORDER_AMENDED, 0);
+        pending.putLong(o.getId())
+                .putLong(o.getSequence())
+                .putInt(o.getQuantity())
+                .putDouble(o.getLimitPrice())
+                .putDouble(o.getMarketPriceSnapshot());
+        endRecord(start);
+    }
+
+    private void appendWatch(byte type, String ticker) {
+        byte[] bytes = tickerBytes(ticker);
+        int start = beginRecord(type, bytes.length);
+        pending.putShort((short) bytes.length).put(bytes);
+        endRecord(start);
+    }
+
+    private void putAsset(Asset a, byte[] ticker) {
+        double param = 0;
+        if (a.getType() == AssetType.COMMODITY) {
+            param = ((Commodity) a).getStorageCostPerUnit();
+        } else if (a.getType() == AssetType.CURRENCY) {
+            param = ((Currency) a).getSpread();
+        }
+        pending.put((byte) a.getType().ordinal())
+                .putShort((short) ticker.length).put(ticker)
+                .putDouble(a.getMarketPrice())
+                .putDouble(param);
+    }
+
+    private static byte[] tickerBytes(String ticker) {
+        byte[] bytes = ticker.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new DataIntegrityException("ticker too long");
+        return bytes;
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    // --- pliki ---
+
+    private static Path snapshotPath(Path dir, long gen) {
+        return dir.resolve("snapshot-" + gen + ".bin");
+    }
+
+    private static Path journalPath(Path dir, long gen) {
+        return dir.resolve("journal-" + gen + ".log");
+    }
+
+    private static Path tmp(Path p) {
+        return p.resolveSibling(p.getFileName() + ".tmp");
+    }
+
+    /**
+     * Najwyższa generacja z kompletną parą snapshot + dziennik, albo -1.
+     */
+    private static long latestGeneration(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return -1;
+        }
+        long best = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "snapshot-*.bin")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                long gen;
+                try {
+                    gen = Long.parseLong(name.substring("snapshot-".length(), name.length() - ".bin".length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (gen > best && Files.exists(journalPath(dir, gen))) {
+                    best = gen;
+                }
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("journal scan failed", e);
+        }
+        return best;
+    }
+
+    // błąd zapisu nie może wyjść z listenera - mutacja portfela już się odbyła
+    private final class Recorder implements PortfolioListener {
+        @Override
+        public void onBuy(Asset asset, int quantity, LocalDate date, double unitPrice) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendTrade(BUY, asset, quantity, date, unitPrice);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onSell(Asset asset, int quantity, LocalDate date, double unitPrice) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendTrade(SELL, asset, quantity, date, unitPrice);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onOrderPlaced(Order order) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendOrderPlaced(order);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onOrderExecuted(Order order) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendOrderExecuted(order);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onOrderCancelled(Order order) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendOrderCancelled(order);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onOrderRejected(Order order, RuntimeException cause) {
+            // zlecenie zeszło z księgi bez wykonania - dla odtworzenia to samo co anulowanie
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendOrderCancelled(order);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onOrderExpired(Order order) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendOrderCancelled(order);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onOrderAmended(Order before, Order after) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendOrderAmended(after);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onDateAdvanced(LocalDate date) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendClock(date);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onWatchlistAdded(String ticker) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendWatch(WATCH_ADD, ticker);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onWatchlistRemoved(String ticker) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                appendWatch(WATCH_REMOVE, ticker);
+                afterAppend();
+            } catch (DataIntegrityException e) {
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * Odtwarzanie rekordów na portfelu ze snapshotu. Zlecenia są zbierane po identyfikatorze
+     * (z uwzględnieniem anulowań i zmian) i na końcu wstawiane z tym samym id i sekwencją
+     * (te, które nie zostały w międzyczasie wykonane ani anulowane).
+     */
+    private static final class Replay {
+        private final Portfolio pf;
+        private final Map<String, Asset> assets = new HashMap<>();
+        private final Map<Long, Order> orders = new LinkedHashMap<>();
+        private long nextOrderSequence;
+        private LocalDate clock;
+
+        Replay(Portfolio pf) {
+            this.pf = pf;
+            for (Position p : pf.getPositionsView()) {
+                assets.put(p.getAsset().getTicker(), p.getAsset());
+            }
+        }
+
+        void run(FileChannel ch, long gen) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buf.flip();
+            if (!fill(ch, buf, JOURNAL_HEADER) || buf.getInt() != JOURNAL_MAGIC || buf.getLong() != gen) {
+                throw new DataIntegrityException("bad journal header");
+            }
+
+            CRC32 crc = new CRC32();
+            while (fill(ch, buf, RECORD_PREFIX)) {
+                int length = buf.getInt();
+                int checksum = buf.getInt();
+                if (length <= 0 || length > BUFFER_SIZE - RECORD_PREFIX || !fill(ch, buf, length)) {
+                    break; // ucięty ogon
+                }
+                ByteBuffer body = buf.slice();
+                body.limit(length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break; // uszkodzony ogon
+                }
+                buf.position(buf.position() + length);
+                try {
+                    apply(body);
+                } catch (RuntimeException e) {
+                    throw new DataIntegrityException("journal replay failed", e);
+                }
+            }
+            finish();
+        }
+
+        // dopilnuj, by w buforze było n bajtów; false przy końcu pliku
+        private static boolean fill(FileChannel ch, ByteBuffer buf, int n) throws IOException {
+            while (buf.remaining() < n) {
+                buf.compact();
+                int read = ch.read(buf);
+                buf.flip();
+                if (read < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void apply(ByteBuffer b) {
+            byte type = b.get();
+            if (type == BUY || type == SELL) {
+                Asset asset = asset(b);
+                int qty = b.getInt();
+                LocalDate date = LocalDate.ofEpochDay(b.getInt());
+                double unitPrice = b.getDouble();
+                if (type == BUY) {
+                    pf.executeBuy(asset, qty, date, unitPrice);
+                } else {
+                    pf.executeSell(asset, qty, date, unitPrice, null);
+                }
+            } else if (type == ORDER_PLACED) {
+                long id = b.getLong();
+                long seq = b.getLong();
+                OrderSide side = OrderSide.values()[b.get()];
+                Asset asset = asset(b);
+                int qty = b.getInt();
+                double limit = b.getDouble();
+                double snapshot = b.getDouble();
+                LocalDate date = LocalDate.ofEpochDay(b.getInt());
+                TimeInForce tif = TimeInForce.values()[b.get()];
+                int expiry = b.getInt();
+                orders.put(id, new Order(id, seq, side, asset, qty, limit, snapshot, date,
+                        tif, expiry == NO_EXPIRY ? null : LocalDate.ofEpochDay(expiry)));
+                nextOrderSequence = Math.max(nextOrderSequence, Math.max(id, seq) + 1);
+            } else if (type == ORDER_EXECUTED || type == ORDER_CANCELLED) {
+                orders.remove(b.getLong());
+            } else if (type == ORDER_AMENDED) {
+                long id = b.getLong();
+                long seq = b.getLong();
+                int qty = b.getInt();
+                double limit = b.getDouble();
+                double snapshot = b.getDouble();
+                Order o = orders.get(id);
+                if (o == null) {
+                    throw new DataIntegrityException("amend of unknown order " + id);
+                }
+                orders.put(id, new Order(id, seq, o.getSide(), o.getAsset(), qty, limit, snapshot, o.getDate(),
+                        o.getTimeInForce(), o.getExpiryDate()));
+                nextOrderSequence = Math.max(nextOrderSequence, seq + 1);
+            } else if (type == ORDER_SEQUENCE) {
+                nextOrderSequence = Math.max(nextOrderSequence, b.getLong());
+            } else if (type == CLOCK) {
+                clock = LocalDate.ofEpochDay(b.getInt());
+            } else if (type == WATCH_ADD) {
+                pf.addToWatchlist(string(b));
+            } else if (type == WATCH_REMOVE) {
+                pf.removeFromWatchlist(string(b));
+            } else {
+                throw new DataIntegrityException("unknown record " + type);
+            }
+        }
+
+        private void finish() {
+            for (Order o : orders.values()) {
+                pf.restoreOrderFromPersistence(o);
+            }
+            pf.restoreOrderSequenceFromPersistence(nextOrderSequence);
+            if (clock != null) {
+                // wygaśnięcia sprzed rekordu CLOCK są już w dzienniku - tu nic nie powinno wygasnąć
+                pf.advanceDate(clock);
+            }
+        }
+
+        private Asset asset(ByteBuffer b) {
+            AssetType type = AssetType.values()[b.get()];
+            String ticker = string(b);
+            double price = b.getDouble();
+            double param = b.getDouble();
+
+            Asset asset = assets.get(ticker);
+            if (asset != null) {
+                asset.setMarketPrice(price);
+                return asset;
+            }
+            if (type == AssetType.SHARE) {
+                asset = new Share(ticker, price);
+            } else if (type == AssetType.COMMODITY) {
+                asset = new Commodity(ticker, price, param);
+            } else {
+                asset = new Currency(ticker, price, param);
+            }
+            assets.put(ticker, asset);
+            return asset;
+        }
+
+        private static String string(ByteBuffer b) {
+            byte[] bytes = new byte[Short.toUnsignedInt(b.getShort())];
+            b.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
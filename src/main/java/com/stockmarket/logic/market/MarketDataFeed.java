@@ -0,0 +1,153 @@
+package com.stockmarket.logic.market;
+
+import com.stockmarket.domain.Asset;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zbiorcze wgrywanie cen rynkowych (ticker -> cena) dla zarejestrowanych aktywów.
+ *
+ * Tickery rozwiązywane są przez indeks zbudowany przy rejestracji. Cała paczka jest najpierw
+ * walidowana (nieznany ticker, cena ujemna/NaN/nieskończona) i dopiero gdy jest poprawna,
+ * ceny są ustawiane - paczka wchodzi w całości albo wcale.
+ *
+ * Wyjątek z listenera ceny (Asset.setMarketPrice ustawia cenę przed powiadomieniem) nie przerywa
+ * wgrywania: pozostałe ceny paczki są ustawiane, a pierwszy wyjątek jest rzucany po pętli
+ * (kolejne jako suppressed).
+ */
+public class MarketDataFeed {
+    private static final int MAX_REPORTED_PROBLEMS = 10;
+
+    private final Map<String, Asset> index;
+
+    public MarketDataFeed() {
+        this.index = new HashMap<>();
+    }
+
+    public MarketDataFeed(Collection<? extends Asset> assets) {
+        if (assets == null) {
+            throw new IllegalArgumentException("assets nie może być null");
+        }
+        this.index = new HashMap<>(Math.max(16, assets.size() * 2));
+        for (Asset a : assets) {
+            register(a);
+        }
+    }
+
+    public void register(Asset asset) {
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset nie może być null");
+        }
+        Asset previous = index.putIfAbsent(asset.getTicker(), asset);
+        if (previous != null && previous != asset) {
+            throw new IllegalArgumentException("Duplikat tickera w indeksie: " + asset.getTicker());
+        }
+    }
+
+    public Asset getAssetOrNull(String ticker) {
+        return ticker == null ? null : index.get(ticker);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Wgrywa paczkę cen: tickers[i] dostaje prices[i].
+     *
+     * @throws IllegalArgumentException gdy którakolwiek pozycja paczki jest niepoprawna (nic nie jest zmieniane)
+     * @throws RuntimeException pierwszy wyjątek listenera ceny - dopiero po ustawieniu wszystkich cen
+     */
+    public BatchResult applyBatch(String[] tickers, double[] prices) {
+        if (tickers == null || prices == null) {
+            throw new IllegalArgumentException("Paczka nie może być null");
+        }
+        if (tickers.length != prices.length) {
+            throw new IllegalArgumentException("Różne długości tickerów i cen: " + tickers.length + " vs " + prices.length);
+        }
+        long start = System.nanoTime();
+
+        Asset[] resolved = new Asset[tickers.length];
+        List<String> problems = null;
+        int problemCount = 0;
+        for (int i = 0; i < tickers.length; i++) {
+            String problem = null;
+            Asset a = tickers[i] == null ? null : index.get(tickers[i]);
+            if (a == null) {
+                problem = "nieznany ticker " + tickers[i];
+            } else if (!(prices[i] >= 0) || Double.isInfinite(prices[i])) {
+                problem = "niepoprawna cena " + prices[i] + " dla " + tickers[i];
+            }
+            if (problem != null) {
+                if (problems == null) {
+                    problems = new ArrayList<>();
+                }
+                if (problems.size() < MAX_REPORTED_PROBLEMS) {
+                    problems.add("[" + i + "] " + problem);
+                }
+                problemCount++;
+            }
+            resolved[i] = a;
+        }
+        if (problems != null) {
+            throw new IllegalArgumentException("Odrzucona paczka cen (" + problemCount + " błędów): " + problems);
+        }
+
+        RuntimeException listenerFailure = null;
+        for (int i = 0; i < resolved.length; i++) {
+            try {
+                resolved[i].setMarketPrice(prices[i]);
+            } catch (RuntimeException e) {
+                if (listenerFailure == null) {
+                    listenerFailure = e;
+                } else {
+                    listenerFailure.addSuppressed(e);
+                }
+            }
+        }
+        if (listenerFailure != null) {
+            throw listenerFailure;
+        }
+        return new BatchResult(resolved.length, System.nanoTime() - start);
+    }
+
+    public BatchResult applyBatch(Map<String, Double> prices) {
+        if (prices == null) {
+            throw new IllegalArgumentException("Paczka nie może być null");
+        }
+        String[] tickers = new String[prices.size()];
+        double[] values = new double[prices.size()];
+        int i = 0;
+        for (Map.Entry<String, Double> e : prices.entrySet()) {
+            tickers[i] = e.getKey();
+            values[i] = e.getValue() == null ? Double.NaN : e.getValue();
+            i++;
+        }
+        return applyBatch(tickers, values);
+    }
+
+    /**
+     * Wynik wgrania paczki: liczba zastosowanych aktualizacji i czas trwania.
+     */
+    public static final class BatchResult {
+        private final int applied;
+        private final long elapsedNanos;
+
+        public BatchResult(int applied, long elapsedNanos) {
+            this.applied = applied;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getApplied() {
+            return applied;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
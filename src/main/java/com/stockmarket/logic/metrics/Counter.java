@@ -0,0 +1,38 @@
+package com.stockmarket.logic.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter {
+    private final MetricsRegistry registry;
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        if (registry.enabled) {
+            value.increment();
+        }
+    }
+
+    public void add(long delta) {
+        if (registry.enabled) {
+            value.add(delta);
+        }
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
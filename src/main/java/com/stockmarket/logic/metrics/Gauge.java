@@ -0,0 +1,33 @@
+package com.stockmarket.logic.metrics;
+
+/**
+ * Wskaźnik chwilowy (ostatnia ustawiona wartość). Przy kilku źródłach wygrywa ostatni zapis.
+ */
+public final class Gauge {
+    private final MetricsRegistry registry;
+    private final String name;
+    private volatile long value;
+
+    Gauge(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void set(long value) {
+        if (registry.enabled) {
+            this.value = value;
+        }
+    }
+
+    public long get() {
+        return value;
+    }
+
+    void reset() {
+        value = 0;
+    }
+}
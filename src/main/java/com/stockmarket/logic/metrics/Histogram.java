@@ -0,0 +1,120 @@
+package com.stockmarket.logic.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram log-liniowy w stylu HDR dla wartości nieujemnych (czasy w ns, liczności).
+ *
+ * Wartości 0..31 mają własne kubełki; powyżej każda potęga dwójki dzielona jest na 32 równe
+ * kubełki, więc błąd względny odczytu percentyla nie przekracza ~3%. Zapis to kilka operacji
+ * bitowych i jeden inkrement atomowy, bez alokacji.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // wykładniki 5..62 po 32 kubełki + 32 kubełki liniowe
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final long TIMER_DISABLED = Long.MIN_VALUE;
+
+    private final MetricsRegistry registry;
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long value) {
+        if (!registry.enabled) {
+            return;
+        }
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Początek pomiaru czasu; przy wyłączonych metrykach nie woła nawet System.nanoTime().
+     */
+    public long startTimer() {
+        return registry.enabled ? System.nanoTime() : TIMER_DISABLED;
+    }
+
+    /**
+     * Zapisuje czas od startTimer() w nanosekundach.
+     */
+    public void stopTimer(long start) {
+        if (start != TIMER_DISABLED) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public MetricsSnapshot.HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new MetricsSnapshot.HistogramSnapshot(total, sum.sum(), max.get(),
+                percentile(copy, total, 0.50),
+                percentile(copy, total, 0.90),
+                percentile(copy, total, 0.99),
+                percentile(copy, total, 0.999));
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (v >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    // największa wartość trafiająca do kubełka (jak "highest equivalent value" w HDR)
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private long percentile(long[] buckets, long total, double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+}
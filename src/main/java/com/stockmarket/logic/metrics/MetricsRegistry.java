@@ -0,0 +1,77 @@
+package com.stockmarket.logic.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rejestr metryk: liczniki, wskaźniki (gauge) i histogramy log-liniowe.
+ *
+ * Instrumenty pobiera się raz (np. do pola static final) i wołane są w gorących ścieżkach.
+ * Każdy zapis zaczyna się od odczytu flagi enabled rejestru - przy wyłączonych metrykach
+ * (domyślnie) koszt to jeden odczyt volatile i skok.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    volatile boolean enabled;
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Counter counter(String name) {
+        requireName(name);
+        return counters.computeIfAbsent(name, n -> new Counter(this, n));
+    }
+
+    public Gauge gauge(String name) {
+        requireName(name);
+        return gauges.computeIfAbsent(name, n -> new Gauge(this, n));
+    }
+
+    public Histogram histogram(String name) {
+        requireName(name);
+        return histograms.computeIfAbsent(name, n -> new Histogram(this, n));
+    }
+
+    /**
+     * Zeruje wartości wszystkich instrumentów (instrumenty pozostają zarejestrowane).
+     */
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        gauges.values().forEach(Gauge::reset);
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * Spójny per instrument (nie globalnie) zrzut wartości, posortowany po nazwach.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> c = new TreeMap<>();
+        counters.forEach((name, counter) -> c.put(name, counter.get()));
+        Map<String, Long> g = new TreeMap<>();
+        gauges.forEach((name, gauge) -> g.put(name, gauge.get()));
+        Map<String, MetricsSnapshot.HistogramSnapshot> h = new TreeMap<>();
+        histograms.forEach((name, histogram) -> h.put(name, histogram.snapshot()));
+        return new MetricsSnapshot(c, g, h);
+    }
+
+    private static void requireName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Nazwa metryki nie może być pusta");
+        }
+    }
+}
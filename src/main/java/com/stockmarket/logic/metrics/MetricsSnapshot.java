@@ -0,0 +1,140 @@
+package com.stockmarket.logic.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Niemutowalny zrzut metryk z MetricsRegistry.snapshot().
+ */
+public final class MetricsSnapshot {
+    private final Map<String, Long> counters;
+    private final Map<String, Long> gauges;
+    private final Map<String, HistogramSnapshot> histograms;
+
+    MetricsSnapshot(Map<String, Long> counters, Map<String, Long> gauges, Map<String, HistogramSnapshot> histograms) {
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    public Map<String, HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    public long getCounter(String name) {
+        Long v = counters.get(name);
+        return v == null ? 0 : v;
+    }
+
+    public long getGauge(String name) {
+        Long v = gauges.get(name);
+        return v == null ? 0 : v;
+    }
+
+    public HistogramSnapshot getHistogramOrNull(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Eksport tekstowy, jedna metryka na linię:
+     * <pre>
+     * counter portfolio.orders.placed 42
+     * gauge engine.queue.depth 7
+     * histogram persistence.load.nanos count=3 mean=1200.00 p50=1100 p90=1500 p99=1500 p999=1500 max=1502
+     * </pre>
+     */
+    public void exportText(Appendable out) {
+        try {
+            for (Map.Entry<String, Long> e : counters.entrySet()) {
+                out.append("counter ").append(e.getKey()).append(' ').append(Long.toString(e.getValue())).append('\n');
+            }
+            for (Map.Entry<String, Long> e : gauges.entrySet()) {
+                out.append("gauge ").append(e.getKey()).append(' ').append(Long.toString(e.getValue())).append('\n');
+            }
+            for (Map.Entry<String, HistogramSnapshot> e : histograms.entrySet()) {
+                HistogramSnapshot h = e.getValue();
+                out.append("histogram ").append(e.getKey())
+                        .append(" count=").append(Long.toString(h.getCount()))
+                        .append(" mean=").append(String.format(Locale.US, "%.2f", h.getMean()))
+                        .append(" p50=").append(Long.toString(h.getP50()))
+                        .append(" p90=").append(Long.toString(h.getP90()))
+                        .append(" p99=").append(Long.toString(h.getP99()))
+                        .append(" p999=").append(Long.toString(h.getP999()))
+                        .append(" max=").append(Long.toString(h.getMax()))
+                        .append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        exportText(sb);
+        return sb.toString();
+    }
+
+    public static final class HistogramSnapshot {
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+
+        HistogramSnapshot(long count, long sum, long max, long p50, long p90, long p99, long p999) {
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+    }
+}
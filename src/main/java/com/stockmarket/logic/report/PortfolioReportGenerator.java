@@ -1,36 +1,164 @@
 package com.stockmarket.logic.report;
 
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
 import com.stockmarket.logic.Portfolio;
 import com.stockmarket.logic.Position;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 public class PortfolioReportGenerator {
+
+    // kolejność jak w PositionReportComparator, ale na kluczach policzonych raz na pozycję
+    private static final Comparator<Row> ROW_ORDER = (a, b) -> {
+        int typeCmp = Integer.compare(a.typeOrder, b.typeOrder);
+        if (typeCmp != 0) {
+            return typeCmp;
+        }
+        int valueCmp = Double.compare(b.marketValue, a.marketValue); // malejąco
+        if (valueCmp != 0) {
+            return valueCmp;
+        }
+        return a.ticker.compareTo(b.ticker);
+    };
+
     public String generateReport(Portfolio portfolio) {
+        StringBuilder sb = new StringBuilder();
+        writeReport(portfolio, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Raport strumieniowo do out (np. Writer), w tym samym formacie co generateReport.
+     * Klucze sortowania liczone są raz na pozycję; wiersze formatowane bez String.format.
+     */
+    public void writeReport(Portfolio portfolio, Appendable out) {
+        requireArgs(portfolio, out);
+
+        Row[] rows = new Row[portfolio.getPositionsView().size()];
+        int n = 0;
+        for (Position p : portfolio.getPositionsView()) {
+            rows[n++] = new Row(p);
+        }
+        Arrays.sort(rows, 0, n, ROW_ORDER);
+
+        StringBuilder line = new StringBuilder(64);
+        writeCash(portfolio, line, out);
+        for (int i = 0; i < n; i++) {
+            writeRow(rows[i], line, out);
+        }
+    }
+
+    /**
+     * Raport ograniczony do topN pozycji o najwyższej wartości rynkowej w każdym typie aktywa.
+     * Selekcja częściowa kopcem rozmiaru topN na typ - pamięć O(typy * topN) niezależnie
+     * od liczby pozycji. Kolejność i format wierszy jak w writeReport.
+     */
+    public void writeTopReport(Portfolio portfolio, int topN, Appendable out) {
+        requireArgs(portfolio, out);
+        if (topN <= 0) {
+            throw new IllegalArgumentException("topN musi być dodatnie");
+        }
+
+        // na szczycie kopca najsłabszy z dotychczas wybranych
+        Comparator<Row> worstFirst = ROW_ORDER.reversed();
+        Map<AssetType, PriorityQueue<Row>> heaps = new EnumMap<>(AssetType.class);
+        for (Position p : portfolio.getPositionsView()) {
+            AssetType type = p.getAsset().getType();
+            PriorityQueue<Row> heap = heaps.computeIfAbsent(type, t -> new PriorityQueue<>(topN + 1, worstFirst));
+            if (heap.size() == topN && !beats(p, heap.peek())) {
+                continue; // nie alokujemy wiersza dla pozycji, która i tak odpadnie
+            }
+            heap.add(new Row(p));
+            if (heap.size() > topN) {
+                heap.poll();
+            }
+        }
+
+        List<Row> rows = new ArrayList<>();
+        for (PriorityQueue<Row> heap : heaps.values()) {
+            rows.addAll(heap);
+        }
+        rows.sort(ROW_ORDER);
+
+        StringBuilder line = new StringBuilder(64);
+        writeCash(portfolio, line, out);
+        for (Row row : rows) {
+            writeRow(row, line, out);
+        }
+    }
+
+    private static boolean beats(Position p, Row worst) {
+        Asset a = p.getAsset();
+        double marketValue = a.getMarketValue(p.getTotalQuantity());
+        int valueCmp = Double.compare(worst.marketValue, marketValue);
+        if (valueCmp != 0) {
+            return valueCmp < 0;
+        }
+        return a.getTicker().compareTo(worst.ticker) < 0;
+    }
+
+    private static void requireArgs(Portfolio portfolio, Appendable out) {
         if (portfolio == null) {
             throw new IllegalArgumentException("portfolio nie może być null");
         }
+        if (out == null) {
+            throw new IllegalArgumentException("out nie może być null");
+        }
+    }
+
+    private static void writeCash(Portfolio portfolio, StringBuilder line, Appendable out) {
+        line.setLength(0);
+        line.append("CASH|");
+        TwoDecimals.append(line, portfolio.getCash());
+        line.append('\n');
+        emit(line, out);
+    }
+
+    private static void writeRow(Row row, StringBuilder line, Appendable out) {
+        line.setLength(0);
+        line.append("ASSET|")
+                .append(row.type)
+                .append('|')
+                .append(row.ticker)
+                .append('|')
+                .append(row.quantity)
+                .append('|');
+        TwoDecimals.append(line, row.marketValue);
+        line.append('\n');
+        emit(line, out);
+    }
+
+    private static void emit(StringBuilder line, Appendable out) {
+        try {
+            out.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        List<Position> positions = new ArrayList<>(portfolio.getPositionsSnapshot());
-        Collections.sort(positions, new PositionReportComparator());
+    private static final class Row {
+        final AssetType type;
+        final int typeOrder;
+        final String ticker;
+        final int quantity;
+        final double marketValue;
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("CASH|").append(String.format(java.util.Locale.US, "%.2f", portfolio.getCash())).append("\n");
-
-        for (Position p : positions) {
-            double marketValue = p.getAsset().getMarketValue(p.getTotalQuantity());
-            sb.append("ASSET|")
-                    .append(p.getAsset().getType())
-                    .append("|")
-                    .append(p.getAsset().getTicker())
-                    .append("|")
-                    .append(p.getTotalQuantity())
-                    .append("|")
-                    .append(String.format(java.util.Locale.US, "%.2f", marketValue))
-                    .append("\n");
+        Row(Position p) {
+            Asset a = p.getAsset();
+            this.type = a.getType();
+            this.typeOrder = type.getSortOrder();
+            this.ticker = a.getTicker();
+            this.quantity = p.getTotalQuantity();
+            this.marketValue = a.getMarketValue(quantity);
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,125 @@
+package com.stockmarket.logic.report;
+
+import com.stockmarket.logic.Portfolio;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pamięć podręczna raportów i wycen portfeli, unieważniana wersją (Portfolio.getVersion()).
+ *
+ * Wynik jest liczony ponownie dopiero, gdy wersja portfela różni się od tej, przy której był
+ * zapamiętany. Liczba pamiętanych portfeli jest ograniczona - przy przepełnieniu usuwany jest
+ * najdawniej używany (LRU). Portfele rozróżniane są po tożsamości obiektu.
+ *
+ * Metody są synchronizowane; sam Portfolio nie jest bezpieczny wątkowo, więc wywołujący
+ * nie może go modyfikować równolegle z odczytem przez cache.
+ */
+public class PortfolioResultCache {
+    private final PortfolioReportGenerator generator;
+    private final Map<Portfolio, Entry> entries;
+
+    private long hits;
+    private long misses;
+
+    public PortfolioResultCache(int maxPortfolios) {
+        this(maxPortfolios, new PortfolioReportGenerator());
+    }
+
+    public PortfolioResultCache(int maxPortfolios, PortfolioReportGenerator generator) {
+        if (maxPortfolios <= 0) {
+            throw new IllegalArgumentException("Pojemność cache musi być dodatnia");
+        }
+        if (generator == null) {
+            throw new IllegalArgumentException("generator nie może być null");
+        }
+        this.generator = generator;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Portfolio, Entry> eldest) {
+                return size() > maxPortfolios;
+            }
+        };
+    }
+
+    public synchronized String report(Portfolio portfolio) {
+        Entry e = entryFor(portfolio);
+        if (e.report == null) {
+            misses++;
+            e.report = generator.generateReport(portfolio);
+        } else {
+            hits++;
+        }
+        return e.report;
+    }
+
+    public synchronized double netWorth(Portfolio portfolio) {
+        Entry e = entryFor(portfolio);
+        if (!e.hasNetWorth) {
+            misses++;
+            e.netWorth = portfolio.calculateTotalNetWorth();
+            e.hasNetWorth = true;
+        } else {
+            hits++;
+        }
+        return e.netWorth;
+    }
+
+    public synchronized double marketWorth(Portfolio portfolio) {
+        Entry e = entryFor(portfolio);
+        if (!e.hasMarketWorth) {
+            misses++;
+            e.marketWorth = portfolio.calculateTotalMarketWorth();
+            e.hasMarketWorth = true;
+        } else {
+            hits++;
+        }
+        return e.marketWorth;
+    }
+
+    public synchronized void invalidate(Portfolio portfolio) {
+        entries.remove(portfolio);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private Entry entryFor(Portfolio portfolio) {
+        if (portfolio == null) {
+            throw new IllegalArgumentException("portfolio nie może być null");
+        }
+        long version = portfolio.getVersion();
+        Entry e = entries.get(portfolio);
+        if (e == null || e.version != version) {
+            e = new Entry(version);
+            entries.put(portfolio, e);
+        }
+        return e;
+    }
+
+    private static final class Entry {
+        final long version;
+        String report;
+        double netWorth;
+        boolean hasNetWorth;
+        double marketWorth;
+        boolean hasMarketWorth;
+
+        Entry(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.stockmarket.logic.report;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * Formatowanie liczby z dwoma miejscami po przecinku, zgodne znak w znak z
+ * {@code String.format(Locale.US, "%.2f", v)}, bez parsowania wzorca przez Formatter.
+ *
+ * Formatter zaokrągla HALF_UP najkrótszą reprezentację dziesiętną double (tę z Double.toString),
+ * czyli dokładnie to, co daje BigDecimal.valueOf(v).setScale(2, HALF_UP). Przypadki, w których
+ * BigDecimal gubi znak (-0.0, małe ujemne zaokrąglane do zera) oraz NaN/nieskończoności idą
+ * przez String.format.
+ */
+final class TwoDecimals {
+
+    private TwoDecimals() {
+    }
+
+    static void append(StringBuilder sb, double v) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            sb.append(String.format(Locale.US, "%.2f", v));
+            return;
+        }
+        BigDecimal rounded = BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
+        if (rounded.signum() == 0 && (Double.doubleToRawLongBits(v) < 0)) {
+            sb.append(String.format(Locale.US, "%.2f", v));
+            return;
+        }
+        sb.append(rounded.toPlainString());
+    }
+}
@@ -0,0 +1,174 @@
+package com.stockmarket.logic.valuation;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Wycena portfeli na puli fork-join.
+ *
+ * Pozycje portfela (albo lista portfeli) dzielone są rekurencyjnie na połówki aż do progu;
+ * liście sumują sekwencyjnie, poddrzewa scalane są w TypeBreakdown. Sumowanie z kompensacją
+ * sprawia, że wynik nie zależy w praktyce od podziału - zgadza się z valueSequential().
+ *
+ * Portfele nie mogą być modyfikowane w trakcie wyceny.
+ */
+public class ParallelValuationService {
+    private static final int POSITIONS_PER_TASK = 1024;
+    private static final int PORTFOLIOS_PER_TASK = 8;
+
+    private final ForkJoinPool pool;
+
+    public ParallelValuationService() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelValuationService(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool null");
+        }
+        this.pool = pool;
+    }
+
+    public Valuation value(Portfolio portfolio) {
+        Position[] positions = positionsOf(portfolio);
+        TypeBreakdown breakdown = positions.length <= POSITIONS_PER_TASK
+                ? sumRange(positions, 0, positions.length)
+                : pool.invoke(new PositionsTask(positions, 0, positions.length));
+        breakdown.addCash(portfolio.getCash());
+        return new Valuation(breakdown);
+    }
+
+    /**
+     * Referencyjna wycena jednowątkowa tym samym algorytmem sumowania.
+     */
+    public Valuation valueSequential(Portfolio portfolio) {
+        Position[] positions = positionsOf(portfolio);
+        TypeBreakdown breakdown = sumRange(positions, 0, positions.length);
+        breakdown.addCash(portfolio.getCash());
+        return new Valuation(breakdown);
+    }
+
+    /**
+     * Wyceny wielu portfeli, w kolejności wejścia.
+     */
+    public List<Valuation> valueAll(Collection<Portfolio> portfolios) {
+        Portfolio[] array = portfoliosOf(portfolios);
+        Valuation[] results = new Valuation[array.length];
+        pool.invoke(new PortfoliosTask(array, results, 0, array.length));
+        List<Valuation> list = new ArrayList<>(results.length);
+        for (Valuation v : results) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    /**
+     * Łączna wycena zbioru portfeli (suma gotówki i pozycji, podział na typy).
+     */
+    public Valuation valueTotal(Collection<Portfolio> portfolios) {
+        Portfolio[] array = portfoliosOf(portfolios);
+        return new Valuation(pool.invoke(new PortfoliosTask(array, null, 0, array.length)));
+    }
+
+    private static Position[] positionsOf(Portfolio portfolio) {
+        if (portfolio == null) {
+            throw new IllegalArgumentException("portfolio nie może być null");
+        }
+        return portfolio.getPositionsView().toArray(new Position[0]);
+    }
+
+    private static Portfolio[] portfoliosOf(Collection<Portfolio> portfolios) {
+        if (portfolios == null) {
+            throw new IllegalArgumentException("Lista portfeli nie może być null");
+        }
+        Portfolio[] array = portfolios.toArray(new Portfolio[0]);
+        for (Portfolio p : array) {
+            if (p == null) {
+                throw new IllegalArgumentException("portfolio nie może być null");
+            }
+        }
+        return array;
+    }
+
+    private static TypeBreakdown sumRange(Position[] positions, int from, int to) {
+        TypeBreakdown b = new TypeBreakdown();
+        for (int i = from; i < to; i++) {
+            b.add(positions[i]);
+        }
+        return b;
+    }
+
+    private static final class PositionsTask extends RecursiveTask<TypeBreakdown> {
+        private final Position[] positions;
+        private final int from;
+        private final int to;
+
+        PositionsTask(Position[] positions, int from, int to) {
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TypeBreakdown compute() {
+            if (to - from <= POSITIONS_PER_TASK) {
+                return sumRange(positions, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            PositionsTask right = new PositionsTask(positions, mid, to);
+            right.fork();
+            TypeBreakdown left = new PositionsTask(positions, from, mid).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * Dzieli listę portfeli; duży portfel w liściu wyceniany jest dalej równolegle po pozycjach.
+     * results == null oznacza tylko sumę łączną.
+     */
+    private static final class PortfoliosTask extends RecursiveTask<TypeBreakdown> {
+        private final Portfolio[] portfolios;
+        private final Valuation[] results;
+        private final int from;
+        private final int to;
+
+        PortfoliosTask(Portfolio[] portfolios, Valuation[] results, int from, int to) {
+            this.portfolios = portfolios;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TypeBreakdown compute() {
+            if (to - from <= PORTFOLIOS_PER_TASK) {
+                TypeBreakdown total = new TypeBreakdown();
+                for (int i = from; i < to; i++) {
+                    Position[] positions = positionsOf(portfolios[i]);
+                    TypeBreakdown b = positions.length <= POSITIONS_PER_TASK
+                            ? sumRange(positions, 0, positions.length)
+                            : new PositionsTask(positions, 0, positions.length).compute();
+                    b.addCash(portfolios[i].getCash());
+                    if (results != null) {
+                        results[i] = new Valuation(b);
+                    }
+                    total.merge(b);
+                }
+                return total;
+            }
+            int mid = (from + to) >>> 1;
+            PortfoliosTask right = new PortfoliosTask(portfolios, results, mid, to);
+            right.fork();
+            TypeBreakdown left = new PortfoliosTask(portfolios, results, from, mid).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+}
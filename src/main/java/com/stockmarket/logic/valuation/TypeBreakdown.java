@@ -0,0 +1,84 @@
+package com.stockmarket.logic.valuation;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.logic.Position;
+
+/**
+ * Częściowe sumy wyceny per typ aktywa, sumowane z kompensacją (Kahan-Neumaier).
+ *
+ * Ten sam obiekt służy za akumulator liścia zadania i za wynik scalania dwóch poddrzew,
+ * więc wynik równoległy różni się od sekwencyjnego co najwyżej o błąd rzędu ulp.
+ */
+final class TypeBreakdown {
+    private static final AssetType[] TYPES = AssetType.values();
+
+    final double[] realSum = new double[TYPES.length];
+    final double[] realComp = new double[TYPES.length];
+    final double[] marketSum = new double[TYPES.length];
+    final double[] marketComp = new double[TYPES.length];
+    final int[] positions = new int[TYPES.length];
+    final double[] cashSum = new double[1];
+    final double[] cashComp = new double[1];
+
+    void addCash(double cash) {
+        add(cashSum, cashComp, 0, cash);
+    }
+
+    void add(Position p) {
+        int t = p.getAsset().getType().ordinal();
+        add(realSum, realComp, t, p.getRealValue());
+        add(marketSum, marketComp, t, p.getMarketValue());
+        positions[t]++;
+    }
+
+    void merge(TypeBreakdown other) {
+        add(cashSum, cashComp, 0, other.cashSum[0]);
+        add(cashSum, cashComp, 0, other.cashComp[0]);
+        for (int t = 0; t < TYPES.length; t++) {
+            add(realSum, realComp, t, other.realSum[t]);
+            add(realSum, realComp, t, other.realComp[t]);
+            add(marketSum, marketComp, t, other.marketSum[t]);
+            add(marketSum, marketComp, t, other.marketComp[t]);
+            positions[t] += other.positions[t];
+        }
+    }
+
+    double real(int t) {
+        return realSum[t] + realComp[t];
+    }
+
+    double market(int t) {
+        return marketSum[t] + marketComp[t];
+    }
+
+    double cash() {
+        return cashSum[0] + cashComp[0];
+    }
+
+    /**
+     * Suma wszystkich typów plus gotówka, również z kompensacją.
+     */
+    double total(boolean market) {
+        double[] s = market ? marketSum : realSum;
+        double[] c = market ? marketComp : realComp;
+        double[] sum = {cashSum[0]};
+        double[] comp = {cashComp[0]};
+        for (int t = 0; t < TYPES.length; t++) {
+            add(sum, comp, 0, s[t]);
+            add(sum, comp, 0, c[t]);
+        }
+        return sum[0] + comp[0];
+    }
+
+    // krok Neumaiera: zachowuje błąd zaokrąglenia niezależnie od tego, który składnik jest większy
+    private static void add(double[] sum, double[] comp, int t, double v) {
+        double s = sum[t];
+        double next = s + v;
+        if (Math.abs(s) >= Math.abs(v)) {
+            comp[t] += (s - next) + v;
+        } else {
+            comp[t] += (v - next) + s;
+        }
+        sum[t] = next;
+    }
+}
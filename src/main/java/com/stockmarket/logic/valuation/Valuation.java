@@ -0,0 +1,74 @@
+package com.stockmarket.logic.valuation;
+
+import com.stockmarket.domain.AssetType;
+
+/**
+ * Wynik wyceny (jednego portfela albo zbioru portfeli) z podziałem na typy aktywów.
+ */
+public final class Valuation {
+    private final double cash;
+    private final double netWorth;
+    private final double marketWorth;
+    private final double[] realByType;
+    private final double[] marketByType;
+    private final int[] positionsByType;
+
+    Valuation(TypeBreakdown breakdown) {
+        int types = AssetType.values().length;
+        this.cash = breakdown.cash();
+        this.netWorth = breakdown.total(false);
+        this.marketWorth = breakdown.total(true);
+        this.realByType = new double[types];
+        this.marketByType = new double[types];
+        this.positionsByType = breakdown.positions.clone();
+        for (int t = 0; t < types; t++) {
+            realByType[t] = breakdown.real(t);
+            marketByType[t] = breakdown.market(t);
+        }
+    }
+
+    public double getCash() {
+        return cash;
+    }
+
+    /**
+     * Gotówka + wartość realna pozycji (jak Portfolio.calculateTotalNetWorth()).
+     */
+    public double getNetWorth() {
+        return netWorth;
+    }
+
+    /**
+     * Gotówka + wartość rynkowa pozycji (jak Portfolio.calculateTotalMarketWorth()).
+     */
+    public double getMarketWorth() {
+        return marketWorth;
+    }
+
+    public double getRealValue(AssetType type) {
+        return realByType[requireType(type)];
+    }
+
+    public double getMarketValue(AssetType type) {
+        return marketByType[requireType(type)];
+    }
+
+    public int getPositionCount(AssetType type) {
+        return positionsByType[requireType(type)];
+    }
+
+    public int getPositionCount() {
+        int n = 0;
+        for (int c : positionsByType) {
+            n += c;
+        }
+        return n;
+    }
+
+    private static int requireType(AssetType type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Typ aktywa nie może być null");
+        }
+        return type.ordinal();
+    }
+}
@@ -0,0 +1,65 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.AssetRegistry;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetIdTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldAssignStableIdPerTicker() {
+        Share a1 = new Share("IDT_AAA", 10.0);
+        Share a2 = new Share("IDT_AAA", 12.0);
+        Share b = new Share("IDT_BBB", 10.0);
+
+        assertEquals(a1.getAssetId(), a2.getAssetId());
+        assertNotEquals(a1.getAssetId(), b.getAssetId());
+        assertEquals("IDT_BBB", AssetRegistry.global().tickerOf(b.getAssetId()));
+        assertEquals(AssetRegistry.NO_ID, AssetRegistry.global().idOf("IDT_NIEZNANY"));
+    }
+
+    @Test
+    void shouldKeepPositionsConsistentAcrossManyTickers() {
+        Portfolio p = new Portfolio(10_000_000.0);
+        int n = 500;
+        Share[] shares = new Share[n];
+        for (int i = 0; i < n; i++) {
+            shares[i] = new Share("IDT_" + i, 10.0);
+            p.executeBuy(shares[i], i + 1, D);
+        }
+        // zamknięcie co trzeciej pozycji - usuwanie z mapy w środku klastrów
+        for (int i = 0; i < n; i += 3) {
+            p.executeSell(shares[i], i + 1, D);
+        }
+
+        int expected = 0;
+        for (int i = 0; i < n; i++) {
+            int qty = i % 3 == 0 ? 0 : i + 1;
+            assertEquals(qty, p.getTotalQuantity("IDT_" + i));
+            assertEquals(qty, p.getTotalQuantity(shares[i]));
+            if (qty > 0) {
+                expected++;
+                assertSame(shares[i], p.getPositionOrNull(shares[i]).getAsset());
+            } else {
+                assertNull(p.getPositionOrNull("IDT_" + i));
+            }
+        }
+        assertEquals(expected, p.getPositionsView().size());
+
+        int iterated = 0;
+        for (Position pos : p.getPositionsView()) {
+            assertTrue(pos.getTotalQuantity() > 0);
+            iterated++;
+        }
+        assertEquals(expected, iterated);
+        assertEquals(0, p.getTotalQuantity("IDT_NIEZNANY"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.TimeInForce;
+import com.stockmarket.logic.backtest.BacktestEngine;
+import com.stockmarket.logic.backtest.BacktestResult;
+import com.stockmarket.logic.backtest.EquityCurve;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+import com.stockmarket.logic.market.MarketDataFeed;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacktestTest {
+
+    private static final String SERIES = String.join("\n",
+            "ticker,date,price",
+            "ABC,2023-01-02,100.0",
+            "XYZ,2023-01-02,50.0",
+            "ABC,2023-01-03,95.0",
+            "ABC,2023-01-04,80.0",
+            "ABC,2023-01-05,120.0",
+            "");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldStepDailyTriggerOrdersAndRecordEquity() {
+        Share abc = new Share("ABC", 100.0);
+        MarketDataFeed feed = new MarketDataFeed(List.of(abc));
+        Portfolio portfolio = new Portfolio(10_000.0);
+        portfolio.placeOrder(OrderSide.BUY, abc, 10, 85.0, LocalDate.of(2023, 1, 1));
+
+        BacktestResult result = new BacktestEngine(feed, portfolio, null).run(new StringReader(SERIES));
+
+        assertEquals(4, result.getTicks());
+        assertEquals(1, result.getSkippedTicks());
+        assertEquals(1, result.getOrdersExecuted());
+        assertEquals(10, portfolio.getTotalQuantity("ABC"));
+
+        EquityCurve curve = result.getEquityCurve();
+        assertEquals(4, curve.size());
+        assertEquals(LocalDate.of(2023, 1, 2), curve.dateAt(0));
+        assertEquals(10_000.0, curve.equityAt(0), 1e-9);
+        assertEquals(portfolio.calculateTotalMarketWorth(), curve.finalEquity(), 1e-9);
+        assertEquals(120.0 * 10 + portfolio.getCash(), curve.finalEquity(), 1e-9);
+        assertTrue(result.getTicksPerSecond() > 0);
+    }
+
+    @Test
+    void shouldMarkEquityAtClosingPriceAfterIntradayFill() {
+        Share abc = new Share("ABC", 100.0);
+        Portfolio portfolio = new Portfolio(10_000.0);
+        portfolio.placeOrder(OrderSide.BUY, abc, 10, 85.0, LocalDate.of(2023, 1, 1));
+
+        // spadek w ciągu dnia aktywuje zlecenie przy 80, zamknięcie dnia odbija do 110
+        BacktestResult result = new BacktestEngine(new MarketDataFeed(List.of(abc)), portfolio, null)
+                .run(new StringReader("ABC,2023-01-02,80.0\nABC,2023-01-02,110.0\n"));
+
+        assertEquals(1, result.getOrdersExecuted());
+        assertEquals(110.0, abc.getMarketPrice(), 0.0);
+        assertEquals(10_000.0 - abc.calculatePurchaseCost(10, 80.0), portfolio.getCash(), 1e-9);
+        assertEquals(portfolio.getCash() + 10 * 110.0, result.getEquityCurve().finalEquity(), 1e-9);
+    }
+
+    @Test
+    void shouldExpireDayOrdersBeforeNextDayFills() {
+        Share abc = new Share("ABC", 100.0);
+        Portfolio portfolio = new Portfolio(10_000.0);
+        LocalDate first = LocalDate.of(2023, 1, 2);
+        portfolio.placeOrder(OrderSide.BUY, abc, 10, 85.0, first, TimeInForce.DAY, null);
+        long gtc = portfolio.placeOrder(OrderSide.BUY, abc, 5, 85.0, first);
+
+        // limit osiągnięty dopiero 2023-01-04: DAY już nie obowiązuje, GTC się wykonuje
+        BacktestResult result = new BacktestEngine(new MarketDataFeed(List.of(abc)), portfolio, null)
+                .run(new StringReader(SERIES));
+
+        assertEquals(1, result.getOrdersExecuted());
+        assertEquals(5, portfolio.getTotalQuantity("ABC"));
+        assertNull(portfolio.getOrderOrNull(gtc));
+        assertEquals(0, portfolio.getPendingOrderCount());
+        assertEquals(LocalDate.of(2023, 1, 5), portfolio.getCurrentDate());
+    }
+
+    @Test
+    void shouldCountRejectedFillsAndKeepRunning() {
+        Share abc = new Share("ABC", 100.0);
+        Portfolio portfolio = new Portfolio(1_000.0);
+        portfolio.placeOrder(OrderSide.BUY, abc, 100, 90.0, LocalDate.of(2023, 1, 1)); // za drogie
+        portfolio.placeOrder(OrderSide.BUY, abc, 5, 85.0, LocalDate.of(2023, 1, 1));
+
+        BacktestResult result = new BacktestEngine(new MarketDataFeed(List.of(abc)), portfolio, null)
+                .run(new StringReader(SERIES));
+
+        assertEquals(1, result.getOrdersRejected());
+        assertEquals(1, result.getOrdersExecuted());
+        assertEquals(5, portfolio.getTotalQuantity("ABC"));
+        assertEquals(0, portfolio.getPendingOrderCount());
+        assertEquals(4, result.getEquityCurve().size());
+    }
+
+    @Test
+    void shouldCountImmediateOrdersPlacedByStrategy() {
+        Share abc = new Share("ABC", 100.0);
+        Portfolio portfolio = new Portfolio(10_000.0);
+        BacktestResult result = new BacktestEngine(new MarketDataFeed(List.of(abc)), portfolio,
+                (date, pf, feed) -> pf.placeOrder(OrderSide.BUY, abc, 1, 200.0, date, TimeInForce.IOC, null))
+                .run(new StringReader(SERIES));
+
+        // IOC nie przechodzi przez księgę, a i tak jest wykonaniem
+        assertEquals(4, result.getOrdersExecuted());
+        assertEquals(4, portfolio.getTotalQuantity("ABC"));
+    }
+
+    @Test
+    void shouldCallStrategyOncePerDay() {
+        Share abc = new Share("ABC", 100.0);
+        List<LocalDate> days = new ArrayList<>();
+        new BacktestEngine(new MarketDataFeed(List.of(abc)), new Portfolio(1000.0),
+                (date, portfolio, feed) -> days.add(date)).run(new StringReader(SERIES));
+
+        assertEquals(List.of(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 3),
+                LocalDate.of(2023, 1, 4), LocalDate.of(2023, 1, 5)), days);
+    }
+
+    @Test
+    void shouldRejectOutOfOrderDates() {
+        Share abc = new Share("ABC", 100.0);
+        BacktestEngine engine = new BacktestEngine(new MarketDataFeed(List.of(abc)), new Portfolio(1000.0), null);
+
+        assertThrows(DataIntegrityException.class,
+                () -> engine.run(new StringReader("ABC,2023-01-03,1.0\nABC,2023-01-02,1.0\n")));
+    }
+
+    @Test
+    void shouldRunIndependentSetupsInParallel() throws IOException {
+        Path file = dir.resolve("series.csv");
+        Files.writeString(file, SERIES);
+
+        List<Supplier<BacktestEngine>> setups = new ArrayList<>();
+        for (double limit : new double[]{99.0, 85.0, 70.0}) {
+            setups.add(() -> {
+                Share abc = new Share("ABC", 100.0);
+                Portfolio portfolio = new Portfolio(10_000.0);
+                portfolio.placeOrder(OrderSide.BUY, abc, 10, limit, LocalDate.of(2023, 1, 1));
+                return new BacktestEngine(new MarketDataFeed(List.of(abc)), portfolio, null);
+            });
+        }
+
+        List<BacktestResult> results = BacktestEngine.runParallel(file, setups, 3);
+
+        assertEquals(3, results.size());
+        assertEquals(10, results.get(0).getPortfolio().getTotalQuantity("ABC"));
+        assertEquals(10, results.get(1).getPortfolio().getTotalQuantity("ABC"));
+        assertEquals(0, results.get(2).getPortfolio().getTotalQuantity("ABC"));
+        assertEquals(10_000.0, results.get(2).getEquityCurve().finalEquity(), 1e-9);
+    }
+}
@@ -0,0 +1,81 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPricingTest {
+
+    private static final int N = 2000;
+
+    @Test
+    void shouldMatchScalarPricingExactly() {
+        Random random = new Random(5L);
+        double[] prices = new double[N];
+        int[] quantities = new int[N];
+        double[] params = new double[N];
+        int[] edges = {0, 1, 99, 100, 101, 999, 1000, 1001};
+        for (int i = 0; i < N; i++) {
+            prices[i] = i % 50 == 0 ? 0.0 : random.nextDouble() * 500;
+            quantities[i] = i < edges.length ? edges[i] : random.nextInt(3000);
+            params[i] = random.nextDouble() * 2;
+        }
+
+        double[] buy = new double[N];
+        double[] sell = new double[N];
+        double[] real = new double[N];
+
+        Share.purchaseCosts(prices, quantities, buy);
+        Share.sellProceeds(prices, quantities, sell);
+        Share.realValues(prices, quantities, real);
+        for (int i = 0; i < N; i++) {
+            Share s = new Share("BP", prices[i]);
+            assertEquals(s.calculatePurchaseCost(quantities[i]), buy[i]);
+            assertEquals(s.calculateSellProceeds(quantities[i]), sell[i]);
+            assertEquals(s.calculateRealValue(quantities[i]), real[i]);
+        }
+
+        Commodity.purchaseCosts(prices, quantities, buy);
+        Commodity.sellProceeds(prices, quantities, sell);
+        Commodity.realValues(prices, quantities, params, real);
+        for (int i = 0; i < N; i++) {
+            Commodity c = new Commodity("BP", prices[i], params[i]);
+            assertEquals(c.calculatePurchaseCost(quantities[i]), buy[i]);
+            assertEquals(c.calculateSellProceeds(quantities[i]), sell[i]);
+            assertEquals(c.calculateRealValue(quantities[i]), real[i]);
+        }
+
+        Currency.purchaseCosts(prices, quantities, params, buy);
+        Currency.sellProceeds(prices, quantities, params, sell);
+        Currency.realValues(prices, quantities, params, real);
+        for (int i = 0; i < N; i++) {
+            Currency c = new Currency("BP", prices[i], params[i]);
+            assertEquals(c.calculatePurchaseCost(quantities[i]), buy[i]);
+            assertEquals(c.calculateSellProceeds(quantities[i]), sell[i]);
+            assertEquals(c.calculateRealValue(quantities[i]), real[i]);
+        }
+    }
+
+    @Test
+    void shouldRejectMismatchedOrNegativeInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Share.purchaseCosts(new double[2], new int[3], new double[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Commodity.realValues(new double[1], new int[]{-1}, new double[1], new double[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Currency.sellProceeds(new double[1], new int[1], null, new double[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Share.sellProceeds(new double[]{1.0, -0.5}, new int[2], new double[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Commodity.purchaseCosts(new double[]{Double.NaN}, new int[1], new double[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Commodity.realValues(new double[1], new int[1], new double[]{-0.01}, new double[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Currency.purchaseCosts(new double[1], new int[1], new double[]{Double.NaN}, new double[1]));
+    }
+}
@@ -0,0 +1,155 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.ConcurrentPortfolio;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.PortfolioListener;
+import com.stockmarket.logic.exceptions.InsufficientFundsException;
+import com.stockmarket.logic.exceptions.InsufficientHoldingsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPortfolioTest {
+
+    @Test
+    void shouldConserveCashAndQuantityUnderConcurrentTrading() throws Exception {
+        int tickers = 16;
+        int threads = 8;
+        int opsPerThread = 20_000;
+        double initialCash = 50_000.0;
+        LocalDate d = LocalDate.of(2023, 1, 1);
+
+        // bez prowizji i magazynowania: koszt = cena * ilość, liczby całkowite - arytmetyka dokładna
+        Commodity[] assets = new Commodity[tickers];
+        for (int i = 0; i < tickers; i++) {
+            assets[i] = new Commodity("C" + i, 10.0, 0.0);
+        }
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(initialCash, 8);
+        AtomicIntegerArray netBought = new AtomicIntegerArray(tickers);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                SplittableRandom rnd = new SplittableRandom(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        int k = rnd.nextInt(tickers);
+                        int qty = 1 + rnd.nextInt(5);
+                        try {
+                            if (rnd.nextBoolean()) {
+                                portfolio.executeBuy(assets[k], qty, d);
+                                netBought.addAndGet(k, qty);
+                            } else {
+                                portfolio.executeSell(assets[k], qty, d);
+                                netBought.addAndGet(k, -qty);
+                            }
+                        } catch (InsufficientFundsException | InsufficientHoldingsException expected) {
+                            // odrzucone operacje nie zmieniają stanu
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        double held = 0;
+        for (int i = 0; i < tickers; i++) {
+            assertEquals(netBought.get(i), portfolio.getTotalQuantity("C" + i));
+            held += portfolio.getTotalQuantity("C" + i) * 10.0;
+        }
+        assertEquals(initialCash, portfolio.getCash() + held, 0.0);
+        assertEquals(initialCash, portfolio.calculateTotalNetWorth(), 0.0);
+    }
+
+    @Test
+    void shouldFillSameTickerOrdersAtTheirOwnSnapshotsFromTwoThreads() throws Exception {
+        int orders = 20_000;
+        LocalDate d = LocalDate.of(2023, 1, 1);
+        Commodity gold = new Commodity("GOLD", 10.0, 0.0);
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(1_000_000.0, 8);
+
+        // naprzemiennie snapshot 10 i 20; limit ponad rynkiem - wszystkie wykonalne
+        for (int i = 0; i < orders; i++) {
+            gold.setMarketPrice(i % 2 == 0 ? 10.0 : 20.0);
+            portfolio.placeOrder(OrderSide.BUY, gold, 1, 1_000.0, d);
+        }
+        gold.setMarketPrice(15.0);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> matchers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            Thread matcher = new Thread(() -> {
+                try {
+                    start.await();
+                    while (portfolio.getPendingOrderCount() > 0) {
+                        portfolio.processNextExecutableOrder();
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            matchers.add(matcher);
+            matcher.start();
+        }
+        start.countDown();
+        for (Thread m : matchers) {
+            m.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        assertEquals(orders, portfolio.getTotalQuantity("GOLD"));
+        assertEquals(1_000_000.0 - orders / 2 * 10.0 - orders / 2 * 20.0, portfolio.getCash(), 0.0);
+        assertEquals(15.0, gold.getMarketPrice(), 0.0);
+    }
+
+    @Test
+    void shouldReportRejectedOrderWhenFillFails() {
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(1_000.0);
+        Share abc = new Share("ABC", 100.0);
+        List<Order> rejected = new ArrayList<>();
+        portfolio.addListener(new PortfolioListener() {
+            @Override
+            public void onOrderRejected(Order order, RuntimeException cause) {
+                rejected.add(order);
+            }
+        });
+        portfolio.placeOrder(OrderSide.BUY, abc, 50, 110.0, LocalDate.of(2023, 1, 1));
+        portfolio.placeOrder(OrderSide.SELL, abc, 5, 90.0, LocalDate.of(2023, 1, 1));
+
+        assertThrows(InsufficientFundsException.class, portfolio::processNextExecutableOrder);
+        assertThrows(InsufficientHoldingsException.class, portfolio::processNextExecutableOrder);
+
+        assertEquals(2, rejected.size());
+        assertEquals(OrderSide.BUY, rejected.get(0).getSide());
+        assertEquals(OrderSide.SELL, rejected.get(1).getSide());
+        assertEquals(0, portfolio.getPendingOrderCount());
+        assertEquals(1_000.0, portfolio.getCash(), 0.0);
+    }
+}
@@ -2,11 +2,14 @@ package com.stockmarket;
 
 import com.stockmarket.domain.Commodity;
 import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.PurchaseLot;
 import com.stockmarket.logic.SaleLotResult;
 import com.stockmarket.logic.SaleReport;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -51,4 +54,51 @@ class FifoSaleTest {
         // Remaining should be 5
         assertEquals(5, portfolio.getTotalQuantity("XYZ"));
     }
+
+    @Test
+    void shouldKeepFifoOrderWhenLotStoreWrapsAndGrows() {
+        Position position = new Position(new Commodity("XYZ", 100.0, 0.0));
+        LocalDate start = LocalDate.of(2023, 1, 1);
+
+        // 6 partii, sprzedaż 4 -> głowa bufora przesunięta; potem dokładanie wymusza zawinięcie i wzrost
+        for (int i = 0; i < 6; i++) {
+            position.addLot(start.plusDays(i), 1, 10.0 + i);
+        }
+        position.sellFifo(start, 4, 20.0);
+        for (int i = 6; i < 20; i++) {
+            position.addLot(start.plusDays(i), 1, 10.0 + i);
+        }
+
+        List<PurchaseLot> lots = position.getLotsSnapshot();
+        assertEquals(16, lots.size());
+        for (int i = 0; i < lots.size(); i++) {
+            assertEquals(start.plusDays(i + 4), lots.get(i).getPurchaseDate());
+            assertEquals(14.0 + i, lots.get(i).getUnitPrice(), 0.0001);
+        }
+
+        SaleReport report = position.sellFifo(start, 3, 20.0);
+        assertEquals(start.plusDays(4), report.getLotResults().get(0).getLotDate());
+        assertEquals(13, position.getTotalQuantity());
+    }
+
+    @Test
+    void shouldStreamLotConsumptionAndReturnSamePnlAsReport() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Commodity xyz = new Commodity("XYZ", 100.0, 0.0);
+        portfolio.executeBuy(xyz, 10, LocalDate.of(2023, 1, 1));
+        xyz.setMarketPrice(120.0);
+        portfolio.executeBuy(xyz, 10, LocalDate.of(2023, 2, 1));
+        xyz.setMarketPrice(150.0);
+
+        int[] consumed = new int[2];
+        double pnl = portfolio.executeSell(xyz, 15, LocalDate.of(2023, 3, 1), (day, qty, buy, lotPnl) -> {
+            consumed[0]++;
+            consumed[1] += qty;
+        });
+
+        assertEquals(650.0, pnl, 0.0001);
+        assertEquals(2, consumed[0]);
+        assertEquals(15, consumed[1]);
+        assertEquals(5, portfolio.getTotalQuantity("XYZ"));
+    }
 }
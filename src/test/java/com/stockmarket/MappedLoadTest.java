@@ -0,0 +1,115 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.PurchaseLot;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+import com.stockmarket.logic.io.PortfolioPersistence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLoadTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PortfolioPersistence persistence = new PortfolioPersistence();
+
+    @Test
+    void shouldLoadSameDataAsReaderBasedLoad() {
+        Portfolio portfolio = new Portfolio(123456.78);
+        Commodity gold = new Commodity("GOLD", 200.0, 1.25);
+        Currency eur = new Currency("EUR", 4.3171, 0.02);
+        Share aapl = new Share("AAPL", 187.33);
+        for (int i = 0; i < 50; i++) {
+            portfolio.executeBuy(gold, 1 + i % 3, LocalDate.of(2020, 2, 1).plusDays(i * 7L));
+        }
+        portfolio.executeBuy(eur, 1500, LocalDate.of(2024, 2, 29));
+        portfolio.executeBuy(aapl, 3, LocalDate.of(1999, 12, 31));
+
+        Path file = tempDir.resolve("p.txt");
+        persistence.save(file, portfolio);
+
+        Portfolio expected = persistence.load(file);
+        Portfolio actual = persistence.loadMapped(file);
+
+        assertEquals(expected.getCash(), actual.getCash(), 0.0);
+        assertEquals(expected.getPositionsView().size(), actual.getPositionsView().size());
+        for (Position e : expected.getPositionsView()) {
+            Position a = actual.getPositionOrNull(e.getAsset().getTicker());
+            assertEquals(e.getAsset().getMarketPrice(), a.getAsset().getMarketPrice(), 0.0);
+            List<PurchaseLot> el = e.getLotsSnapshot();
+            List<PurchaseLot> al = a.getLotsSnapshot();
+            assertEquals(el.size(), al.size());
+            for (int i = 0; i < el.size(); i++) {
+                assertEquals(el.get(i).getPurchaseDate(), al.get(i).getPurchaseDate());
+                assertEquals(el.get(i).getQuantity(), al.get(i).getQuantity());
+                assertEquals(el.get(i).getUnitPrice(), al.get(i).getUnitPrice(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    void shouldApplySameValidationAsReaderBasedLoad() throws Exception {
+        String[] bad = {
+                "HEADER|CASH|100.00\nASSET|SHARE|AAPL|10|150.00\nLOT|2023-05-10|5|150.00",
+                "HEADER|CASH|100.00\nLOT|2023-05-10|5|150.00",
+                "HEADER|CASH|100.00\nASSET|BOND|X|1|1.00\nLOT|2023-05-10|1|1.00",
+                "HEADER|CASH|-1.00",
+                "HEADER|CASH|100.00\nASSET|SHARE|AAPL|1|150.00\nLOT|2023-02-30|1|150.00",
+                "HEADER|CASH|100.00\nASSET|SHARE|AAPL|-1|150.00",
+                "HEADER|CASH|100.00\r\nASSET|COMMODITY|GOLD|1|150.00\r\nLOT|2023-01-01|1|1.0",
+                "",
+        };
+        for (String content : bad) {
+            Path file = tempDir.resolve("bad.txt");
+            Files.writeString(file, content);
+            DataIntegrityException expected = assertThrows(DataIntegrityException.class, () -> persistence.load(file));
+            DataIntegrityException actual = assertThrows(DataIntegrityException.class, () -> persistence.loadMapped(file));
+            assertEquals(expected.getMessage(), actual.getMessage(), content);
+        }
+    }
+
+    @Test
+    void shouldLoadLargeFileInParallelChunksWithSameResultAndErrors() throws Exception {
+        StringBuilder sb = new StringBuilder("HEADER|CASH|1000.00\n");
+        for (int a = 0; a < 3000; a++) {
+            sb.append("ASSET|SHARE|T").append(a).append("|20|").append(a).append(".25\n");
+            for (int l = 0; l < 10; l++) {
+                sb.append("LOT|2023-01-").append(10 + l).append("|2|").append(a).append(".123456\n");
+            }
+        }
+        Path file = tempDir.resolve("big.txt");
+        Files.writeString(file, sb);
+
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            Portfolio expected = persistence.load(file);
+            Portfolio actual = persistence.loadParallel(file, pool);
+            assertEquals(expected.getPositionsView().size(), actual.getPositionsView().size());
+            assertEquals(20, actual.getTotalQuantity("T2999"));
+            assertEquals(expected.recalculateTotalMarketWorth(), actual.recalculateTotalMarketWorth(), 1e-6);
+
+            // duplikat w późnym fragmencie i błąd jeszcze dalej: wygrywa to, co pierwsze w pliku
+            sb.append("ASSET|SHARE|T5|2|1.00\nLOT|2023-01-01|2|1.00\n");
+            sb.append("ASSET|SHARE|X|2|1.00\nLOT|2023-01-01|1|1.00\n");
+            Files.writeString(file, sb);
+            RuntimeException e = assertThrows(RuntimeException.class, () -> persistence.load(file));
+            RuntimeException a = assertThrows(RuntimeException.class, () -> persistence.loadParallel(file, pool));
+            assertEquals(e.getClass(), a.getClass());
+            assertEquals(e.getMessage(), a.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.market.MarketDataFeed;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataFeedTest {
+
+    @Test
+    void shouldApplyWholeBatchOrNothing() {
+        Share aaa = new Share("AAA", 10.0);
+        Commodity gold = new Commodity("GOLD", 200.0, 1.0);
+        MarketDataFeed feed = new MarketDataFeed(List.<Asset>of(aaa, gold));
+
+        MarketDataFeed.BatchResult result = feed.applyBatch(new String[]{"AAA", "GOLD"}, new double[]{11.0, 210.0});
+        assertEquals(2, result.getApplied());
+        assertEquals(11.0, aaa.getMarketPrice(), 0.0);
+        assertEquals(210.0, gold.getMarketPrice(), 0.0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> feed.applyBatch(new String[]{"AAA", "NOPE"}, new double[]{12.0, 1.0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> feed.applyBatch(new String[]{"AAA", "GOLD"}, new double[]{12.0, Double.NaN}));
+        assertEquals(11.0, aaa.getMarketPrice(), 0.0);
+    }
+
+    @Test
+    void shouldApplyRemainingPricesWhenListenerThrows() {
+        Share aaa = new Share("AAA", 10.0);
+        Share bbb = new Share("BBB", 20.0);
+        Share ccc = new Share("CCC", 30.0);
+        MarketDataFeed feed = new MarketDataFeed(List.<Asset>of(aaa, bbb, ccc));
+        aaa.addPriceListener((asset, oldPrice, newPrice) -> {
+            throw new IllegalStateException("listener AAA");
+        });
+        bbb.addPriceListener((asset, oldPrice, newPrice) -> {
+            throw new IllegalStateException("listener BBB");
+        });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> feed.applyBatch(new String[]{"AAA", "BBB", "CCC"}, new double[]{11.0, 21.0, 31.0}));
+        assertEquals("listener AAA", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+        assertEquals(11.0, aaa.getMarketPrice(), 0.0);
+        assertEquals(21.0, bbb.getMarketPrice(), 0.0);
+        assertEquals(31.0, ccc.getMarketPrice(), 0.0);
+    }
+}
@@ -0,0 +1,157 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioListener;
+import com.stockmarket.logic.io.PortfolioPersistence;
+import com.stockmarket.logic.metrics.Histogram;
+import com.stockmarket.logic.metrics.MetricsRegistry;
+import com.stockmarket.logic.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    private final MetricsRegistry metrics = MetricsRegistry.global();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void enable() {
+        metrics.reset();
+        metrics.setEnabled(true);
+    }
+
+    @AfterEach
+    void disable() {
+        metrics.setEnabled(false);
+        metrics.reset();
+    }
+
+    @Test
+    void shouldReportOrderProcessingLotsAndPersistence() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.executeBuy(abc, 5, D);
+        p.executeBuy(abc, 5, D);
+
+        p.placeOrder(OrderSide.SELL, abc, 7, 90.0, D);   // wykonalne
+        p.placeOrder(OrderSide.SELL, abc, 1, 150.0, D);  // spoczywa
+
+        p.processNextExecutableOrder();
+        p.processNextExecutableOrder();
+
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        Path file = dir.resolve("p.txt");
+        persistence.save(file, p);
+        persistence.load(file);
+        persistence.loadMapped(file);
+
+        MetricsSnapshot s = metrics.snapshot();
+        assertEquals(2, s.getCounter("portfolio.orders.placed"));
+        assertEquals(1, s.getCounter("portfolio.orders.executed"));
+        assertEquals(1, s.getCounter("portfolio.orders.process.idle"));
+        // próbki po każdej zmianie księgi: złożenie, złożenie, wykonanie
+        MetricsSnapshot.HistogramSnapshot depth = s.getHistogramOrNull("portfolio.book.depth");
+        assertEquals(3, depth.getCount());
+        assertEquals(2, depth.getMax());
+        assertEquals(4.0 / 3, depth.getMean(), 1e-9);
+        MetricsSnapshot.HistogramSnapshot executable = s.getHistogramOrNull("portfolio.book.executable");
+        assertEquals(3, executable.getCount());
+        assertEquals(2.0 / 3, executable.getMean(), 1e-9);
+
+        MetricsSnapshot.HistogramSnapshot lots = s.getHistogramOrNull("position.sellFifo.lots");
+        assertEquals(1, lots.getCount());
+        assertEquals(2, lots.getMax());
+
+        assertEquals(1, s.getHistogramOrNull("persistence.save.nanos").getCount());
+        assertEquals(2, s.getHistogramOrNull("persistence.load.nanos").getCount());
+        assertTrue(s.toString().contains("counter portfolio.orders.placed 2"));
+    }
+
+    @Test
+    void shouldCountFailedFillOnlyAsRejected() {
+        Portfolio p = new Portfolio(1_000.0);
+        Share abc = new Share("ABC", 100.0);
+        List<String> events = new ArrayList<>();
+        p.addListener(new PortfolioListener() {
+            @Override
+            public void onOrderExecuted(Order order) {
+                events.add("executed " + order.getQuantity());
+            }
+
+            @Override
+            public void onOrderRejected(Order order, RuntimeException cause) {
+                events.add("rejected " + order.getQuantity());
+            }
+        });
+        p.placeOrder(OrderSide.BUY, abc, 50, 110.0, D); // za drogie
+        p.placeOrder(OrderSide.BUY, abc, 2, 110.0, D);
+        p.processAllExecutableOrders();
+
+        MetricsSnapshot s = metrics.snapshot();
+        assertEquals(List.of("rejected 50", "executed 2"), events);
+        assertEquals(1, s.getCounter("portfolio.orders.executed"));
+        assertEquals(1, s.getCounter("portfolio.orders.rejected"));
+    }
+
+    @Test
+    void shouldAggregateBookDepthAcrossPortfolios() {
+        Share abc = new Share("ABC", 100.0);
+        Portfolio a = new Portfolio(100_000.0);
+        Portfolio b = new Portfolio(100_000.0);
+        for (int i = 0; i < 3; i++) {
+            a.placeOrder(OrderSide.BUY, abc, 1, 50.0, D);
+        }
+        b.placeOrder(OrderSide.BUY, abc, 1, 50.0, D);
+
+        // ostatni zapis (b, głębokość 1) nie zasłania głębszej księgi a
+        MetricsSnapshot.HistogramSnapshot depth = metrics.snapshot().getHistogramOrNull("portfolio.book.depth");
+        assertEquals(4, depth.getCount());
+        assertEquals(3, depth.getMax());
+    }
+
+    @Test
+    void shouldRecordNothingWhenDisabled() {
+        metrics.setEnabled(false);
+        Portfolio p = new Portfolio(10_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.executeBuy(abc, 5, D);
+        p.placeOrder(OrderSide.SELL, abc, 5, 90.0, D);
+        p.processNextExecutableOrder();
+
+        MetricsSnapshot s = metrics.snapshot();
+        assertEquals(0, s.getCounter("portfolio.orders.placed"));
+        assertEquals(0, s.getHistogramOrNull("position.sellFifo.lots").getCount());
+    }
+
+    @Test
+    void shouldEstimatePercentilesWithinBucketPrecision() {
+        Histogram h = metrics.histogram("test.values");
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v);
+        }
+        MetricsSnapshot.HistogramSnapshot s = h.snapshot();
+
+        assertEquals(100_000, s.getCount());
+        assertEquals(100_000, s.getMax());
+        assertEquals(50_000.5, s.getMean(), 1e-9);
+        assertEquals(50_000, s.getP50(), 50_000 * 0.04);
+        assertEquals(99_000, s.getP99(), 99_000 * 0.04);
+        assertTrue(s.getP50() >= 50_000);
+    }
+}
@@ -0,0 +1,76 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderBook;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.SaleReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldReturnBestExecutableOrderAcrossTickersByPriceThenSequence() {
+        Share abc = new Share("ABC", 100.0);
+        Share xyz = new Share("XYZ", 100.0);
+        OrderBook book = new OrderBook();
+
+        book.add(new Order(1, OrderSide.BUY, abc, 1, 101.0, 100.0, D), true);
+        book.add(new Order(2, OrderSide.BUY, xyz, 1, 105.0, 100.0, D), true);
+        book.add(new Order(3, OrderSide.BUY, abc, 1, 105.0, 100.0, D), true);
+        book.add(new Order(4, OrderSide.BUY, abc, 1, 110.0, 120.0, D), false);
+
+        // niewykonalne zlecenie jest najatrakcyjniejsze, ale nie blokuje wyszukiwania
+        assertEquals(4, book.peek().getSequence());
+        assertEquals(2, book.pollExecutable().getSequence());
+        assertEquals(3, book.pollExecutable().getSequence());
+        assertEquals(1, book.pollExecutable().getSequence());
+        assertNull(book.pollExecutable());
+        assertEquals(1, book.size());
+        assertEquals(1, book.restingCount());
+    }
+
+    @Test
+    void shouldExecuteOnlyExecutableOrderAndKeepTheRestPending() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Share abc = new Share("ABC", 110.0);
+
+        portfolio.placeOrder(OrderSide.BUY, abc, 1, 100.0, D);  // limit < rynek
+        portfolio.placeOrder(OrderSide.BUY, abc, 2, 115.0, D);  // wykonalne
+
+        portfolio.processNextExecutableOrder();
+
+        assertEquals(2, portfolio.getTotalQuantity("ABC"));
+        assertEquals(1, portfolio.getPendingOrderCount());
+        assertNull(portfolio.processNextExecutableOrder());
+        assertEquals(100.0, portfolio.peekNextOrder().getLimitPrice(), 0.0001);
+    }
+
+    @Test
+    void shouldDrainAllExecutableOrdersInPriorityOrder() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Share abc = new Share("ABC", 100.0);
+        portfolio.executeBuy(abc, 10, D);
+
+        portfolio.placeOrder(OrderSide.SELL, abc, 3, 90.0, D);   // wykonalne
+        portfolio.placeOrder(OrderSide.SELL, abc, 4, 95.0, D);   // wykonalne
+        portfolio.placeOrder(OrderSide.SELL, abc, 1, 130.0, D);  // niewykonalne
+        portfolio.placeOrder(OrderSide.BUY, abc, 2, 100.0, D);   // wykonalne
+
+        List<SaleReport> reports = portfolio.processAllExecutableOrders();
+
+        assertEquals(2, reports.size());
+        assertEquals(3, reports.get(0).getQuantitySold());
+        assertEquals(4, reports.get(1).getQuantitySold());
+        assertEquals(5, portfolio.getTotalQuantity("ABC"));
+        assertEquals(1, portfolio.getPendingOrderCount());
+    }
+}
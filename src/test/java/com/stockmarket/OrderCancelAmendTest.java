@@ -0,0 +1,135 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.io.FsyncPolicy;
+import com.stockmarket.logic.io.TradeJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCancelAmendTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldCancelByIdAndKeepBookConsistent() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+
+        long best = p.placeOrder(OrderSide.BUY, abc, 1, 110.0, D);     // wykonalne, najlepsze
+        long second = p.placeOrder(OrderSide.BUY, abc, 2, 105.0, D);   // wykonalne
+        long resting = p.placeOrder(OrderSide.BUY, abc, 3, 90.0, D);   // spoczywa
+
+        assertTrue(p.cancelOrder(best));
+        assertFalse(p.cancelOrder(best));
+        assertNull(p.getOrderOrNull(best));
+        assertEquals(second, p.peekNextOrder().getId());
+        assertEquals(2, p.getPendingOrderCount());
+
+        assertTrue(p.cancelOrder(resting));
+        p.processAllExecutableOrders();
+        assertEquals(2, p.getTotalQuantity("ABC"));
+        assertEquals(0, p.getPendingOrderCount());
+        assertFalse(p.cancelOrder(second)); // już wykonane
+    }
+
+    @Test
+    void shouldKeepPriorityOnQuantityAmendAndLoseItOnPriceAmend() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.executeBuy(abc, 50, D);
+
+        long first = p.placeOrder(OrderSide.SELL, abc, 5, 95.0, D);
+        long second = p.placeOrder(OrderSide.SELL, abc, 6, 95.0, D);
+
+        assertTrue(p.amendOrderQuantity(first, 9));
+        Order head = p.peekNextOrder();
+        assertEquals(first, head.getId());
+        assertEquals(9, head.getQuantity());
+
+        // ta sama cena, ale nowa sekwencja - ląduje za drugim
+        assertTrue(p.amendOrderPrice(first, 95.0));
+        assertEquals(second, p.peekNextOrder().getId());
+        Order amended = p.getOrderOrNull(first);
+        assertEquals(first, amended.getId());
+        assertTrue(amended.getSequence() > amended.getId());
+
+        // przecena ponad rynek - zlecenie przestaje być wykonalne
+        assertTrue(p.amendOrderPrice(second, 130.0));
+        assertEquals(9, p.processNextExecutableOrder().getQuantitySold());
+        assertNull(p.processNextExecutableOrder());
+        assertEquals(1, p.getPendingOrderCount());
+        assertFalse(p.amendOrderQuantity(first, 1));
+    }
+
+    @Test
+    void shouldRecoverCancelsAndAmendsFromJournal() throws Exception {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        long a;
+        long b;
+        try (TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_GROUP, 4)) {
+            portfolio.executeBuy(abc, 20, D);
+            a = portfolio.placeOrder(OrderSide.SELL, abc, 2, 120.0, D);
+            b = portfolio.placeOrder(OrderSide.SELL, abc, 3, 120.0, D);
+            long c = portfolio.placeOrder(OrderSide.SELL, abc, 4, 125.0, D);
+            journal.checkpoint();
+
+            portfolio.amendOrderPrice(a, 120.0);     // a za b
+            portfolio.amendOrderQuantity(b, 7);
+            portfolio.cancelOrder(c);
+        }
+
+        TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1);
+        Portfolio p = recovered.getPortfolio();
+        recovered.close();
+
+        assertEquals(2, p.getPendingOrderCount());
+        assertEquals(b, p.peekNextOrder().getId());
+        assertEquals(7, p.peekNextOrder().getQuantity());
+        assertEquals(portfolio.getOrderOrNull(a).getSequence(), p.getOrderOrNull(a).getSequence());
+        long fresh = p.placeOrder(OrderSide.SELL, abc, 1, 130.0, D);
+        assertTrue(fresh > portfolio.getOrderOrNull(a).getSequence());
+    }
+
+    @Test
+    void shouldNotReuseIdsOfFilledOrCancelledOrdersAfterRecovery() throws Exception {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        long highest;
+        try (TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_GROUP, 4)) {
+            long filled = portfolio.placeOrder(OrderSide.BUY, abc, 1, 110.0, D);
+            highest = portfolio.placeOrder(OrderSide.BUY, abc, 1, 90.0, D);
+            portfolio.processAllExecutableOrders();
+            portfolio.cancelOrder(highest);
+            assertNull(portfolio.getOrderOrNull(filled));
+            // checkpoint bez żadnego zlecenia oczekującego - id zostaje tylko w liczniku
+            journal.checkpoint();
+        }
+
+        TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1);
+        Portfolio p = recovered.getPortfolio();
+        long fresh = p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D);
+        recovered.close();
+
+        assertEquals(1, p.getPendingOrderCount());
+        assertTrue(fresh > highest);
+        assertFalse(p.cancelOrder(highest));
+
+        // drugie odtworzenie (checkpoint z recover + ogon z nowym zleceniem)
+        TradeJournal again = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1);
+        Portfolio q = again.getPortfolio();
+        assertTrue(q.placeOrder(OrderSide.BUY, abc, 1, 90.0, D) > fresh);
+        again.close();
+    }
+}
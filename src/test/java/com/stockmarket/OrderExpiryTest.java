@@ -0,0 +1,240 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioListener;
+import com.stockmarket.logic.TimeInForce;
+import com.stockmarket.logic.io.FsyncPolicy;
+import com.stockmarket.logic.io.TradeJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderExpiryTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 2);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldExpireDayAndGtdOrdersWhenClockPassesTheirLastDay() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.advanceDate(D);
+
+        long day = p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.DAY, null);
+        long gtd = p.placeOrder(OrderSide.BUY, abc, 2, 90.0, D, TimeInForce.GTD, D.plusDays(100));
+        long gtc = p.placeOrder(OrderSide.BUY, abc, 3, 90.0, D, TimeInForce.GTC, null);
+        long farGtd = p.placeOrder(OrderSide.BUY, abc, 4, 90.0, D, TimeInForce.GTD, D.plusYears(40));
+
+        assertTrue(p.advanceDate(D).isEmpty());
+
+        List<Order> expired = p.advanceDate(D.plusDays(1));
+        assertEquals(1, expired.size());
+        assertEquals(day, expired.get(0).getId());
+        assertNull(p.getOrderOrNull(day));
+
+        assertTrue(p.advanceDate(D.plusDays(100)).isEmpty());
+        expired = p.advanceDate(D.plusDays(101));
+        assertEquals(1, expired.size());
+        assertEquals(gtd, expired.get(0).getId());
+
+        // skok o dekady: przechodzi przez wyższe poziomy koła
+        assertTrue(p.advanceDate(D.plusYears(40)).isEmpty());
+        expired = p.advanceDate(D.plusYears(50));
+        assertEquals(1, expired.size());
+        assertEquals(farGtd, expired.get(0).getId());
+
+        assertNotNull(p.getOrderOrNull(gtc));
+        assertEquals(1, p.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldExpireManyOrdersInDeadlineOrder() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.advanceDate(D);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 999; i >= 0; i--) {
+            ids.add(0, p.placeOrder(OrderSide.BUY, abc, 1, 50.0, D, TimeInForce.GTD, D.plusDays(i * 7L)));
+        }
+
+        List<Order> expired = new ArrayList<>();
+        for (int day = 1; day <= 7000; day += 13) {
+            expired.addAll(p.advanceDate(D.plusDays(day)));
+        }
+        expired.addAll(p.advanceDate(D.plusDays(7001)));
+
+        assertEquals(1000, expired.size());
+        for (int i = 0; i < expired.size(); i++) {
+            assertEquals(ids.get(i), expired.get(i).getId());
+        }
+        assertEquals(0, p.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldSkipCancelledAndExecutedOrdersOnExpiry() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.advanceDate(D);
+
+        long cancelled = p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.DAY, null);
+        long executed = p.placeOrder(OrderSide.BUY, abc, 2, 110.0, D, TimeInForce.DAY, null);
+        long amended = p.placeOrder(OrderSide.BUY, abc, 3, 90.0, D, TimeInForce.DAY, null);
+
+        p.cancelOrder(cancelled);
+        p.processAllExecutableOrders();
+        p.amendOrderPrice(amended, 95.0); // ten sam identyfikator, ta sama ważność
+
+        List<Order> expired = p.advanceDate(D.plusDays(1));
+        assertEquals(1, expired.size());
+        assertEquals(amended, expired.get(0).getId());
+        assertEquals(95.0, expired.get(0).getLimitPrice());
+        assertEquals(2, p.getTotalQuantity("ABC"));
+        assertNull(p.getOrderOrNull(executed));
+    }
+
+    @Test
+    void shouldDropExpiryEntriesOfCancelledAndExecutedOrdersWithoutAdvancingClock() {
+        Portfolio p = new Portfolio(1_000_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.advanceDate(D);
+
+        // zegar stoi w miejscu - koło nie może rosnąć o zlecenia, których już nie ma
+        for (int i = 0; i < 10_000; i++) {
+            long id = p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.GTD, D.plusDays(i % 500));
+            p.cancelOrder(id);
+        }
+        long kept = p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.GTD, D.plusDays(3));
+        p.placeOrder(OrderSide.BUY, abc, 1, 110.0, D, TimeInForce.DAY, null);
+        p.processAllExecutableOrders();
+
+        assertEquals(1, p.getScheduledExpiryCount());
+        assertTrue(p.advanceDate(D.plusDays(3)).isEmpty());
+        assertEquals(kept, p.advanceDate(D.plusDays(4)).get(0).getId());
+        assertEquals(0, p.getScheduledExpiryCount());
+    }
+
+    @Test
+    void shouldExecuteOrExpireIocImmediately() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        List<Order> expiredEvents = new ArrayList<>();
+        p.addListener(new PortfolioListener() {
+            @Override
+            public void onOrderExpired(Order order) {
+                expiredEvents.add(order);
+            }
+        });
+
+        long filled = p.placeOrder(OrderSide.BUY, abc, 5, 101.0, D, TimeInForce.IOC, null);
+        assertEquals(5, p.getTotalQuantity("ABC"));
+        assertNull(p.getOrderOrNull(filled));
+
+        long missed = p.placeOrder(OrderSide.BUY, abc, 5, 99.0, D, TimeInForce.IOC, null);
+        assertEquals(5, p.getTotalQuantity("ABC"));
+        assertEquals(0, p.getPendingOrderCount());
+        assertEquals(1, expiredEvents.size());
+        assertEquals(missed, expiredEvents.get(0).getId());
+    }
+
+    @Test
+    void shouldRejectInvalidTimeInForce() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.advanceDate(D);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.GTD, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.GTC, D.plusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.GTD, D.minusDays(1)));
+        // dzień zlecenia DAY już minął
+        assertThrows(IllegalArgumentException.class,
+                () -> p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D.minusDays(1), TimeInForce.DAY, null));
+        assertThrows(IllegalArgumentException.class, () -> p.advanceDate(D.minusDays(1)));
+        assertEquals(0, p.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldNotConsumeOrderIdsOnExpiredPlacement() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.advanceDate(D.plusDays(10));
+
+        long first = p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D.plusDays(10), TimeInForce.DAY, null);
+        assertThrows(IllegalArgumentException.class,
+                () -> p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.DAY, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.GTD, D.plusDays(9)));
+        long second = p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.GTD, D.plusDays(10));
+
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void shouldRecoverTimeInForceAndExpiriesFromJournal() throws Exception {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        long day;
+        long gtd;
+        try (TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_GROUP, 4)) {
+            portfolio.advanceDate(D);
+            day = portfolio.placeOrder(OrderSide.BUY, abc, 1, 90.0, D, TimeInForce.DAY, null);
+            gtd = portfolio.placeOrder(OrderSide.BUY, abc, 2, 90.0, D, TimeInForce.GTD, D.plusDays(5));
+            long early = portfolio.placeOrder(OrderSide.BUY, abc, 3, 90.0, D.minusDays(3),
+                    TimeInForce.GTD, D.plusDays(1));
+            journal.checkpoint();
+            portfolio.advanceDate(D.plusDays(2)); // wygasają day i early
+            assertNull(portfolio.getOrderOrNull(early));
+        }
+
+        TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1);
+        Portfolio p = recovered.getPortfolio();
+        recovered.close();
+
+        assertEquals(1, p.getPendingOrderCount());
+        assertNull(p.getOrderOrNull(day));
+        Order restored = p.getOrderOrNull(gtd);
+        assertEquals(TimeInForce.GTD, restored.getTimeInForce());
+        assertEquals(D.plusDays(5), restored.getExpiryDate());
+
+        assertTrue(p.advanceDate(D.plusDays(5)).isEmpty());
+        assertEquals(gtd, p.advanceDate(D.plusDays(6)).get(0).getId());
+    }
+
+    @Test
+    void shouldRecoverClockFromCheckpointAndJournal() throws Exception {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        try (TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_GROUP, 4)) {
+            portfolio.advanceDate(D);
+            journal.checkpoint();
+        }
+        TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1);
+        Portfolio p = recovered.getPortfolio();
+        assertEquals(D, p.getCurrentDate());
+        // zlecenie DAY sprzed zegara nadal odrzucane po odtworzeniu
+        assertThrows(IllegalArgumentException.class,
+                () -> p.placeOrder(OrderSide.BUY, abc, 1, 90.0, D.minusDays(1), TimeInForce.DAY, null));
+
+        p.advanceDate(D.plusDays(7)); // tylko w dzienniku, bez checkpointu
+        recovered.close();
+
+        try (TradeJournal again = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1)) {
+            assertEquals(D.plusDays(7), again.getPortfolio().getCurrentDate());
+            assertThrows(IllegalArgumentException.class, () -> again.getPortfolio().advanceDate(D.plusDays(6)));
+        }
+    }
+}
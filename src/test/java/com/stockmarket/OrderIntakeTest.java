@@ -0,0 +1,193 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Order;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioListener;
+import com.stockmarket.logic.exceptions.InsufficientFundsException;
+import com.stockmarket.logic.engine.BackpressurePolicy;
+import com.stockmarket.logic.engine.OrderIntake;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIntakeTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldAcceptOrdersFromManyProducersAndMatchThem() throws Exception {
+        Portfolio p = new Portfolio(10_000_000.0);
+        Share abc = new Share("ABC", 100.0);
+        int producers = 8;
+        int perProducer = 2_000;
+        List<List<CompletableFuture<Long>>> futures = new ArrayList<>();
+
+        try (OrderIntake intake = new OrderIntake(p, 64, BackpressurePolicy.BLOCK, 16)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < producers; t++) {
+                List<CompletableFuture<Long>> mine = new ArrayList<>();
+                futures.add(mine);
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        // co drugie wykonalne od razu, reszta spoczywa w księdze
+                        double limit = i % 2 == 0 ? 110.0 : 90.0;
+                        mine.add(intake.placeOrder(OrderSide.BUY, abc, 1, limit, D));
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread t : threads) {
+                t.join();
+            }
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (List<CompletableFuture<Long>> mine : futures) {
+            for (CompletableFuture<Long> f : mine) {
+                assertTrue(f.isDone());
+                assertTrue(ids.add(f.join()));
+            }
+        }
+        assertEquals(producers * perProducer, ids.size());
+        assertEquals(producers * perProducer / 2, p.getTotalQuantity("ABC"));
+        assertEquals(producers * perProducer / 2, p.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldFailOrDropWhenBufferIsFull() throws Exception {
+        for (BackpressurePolicy policy : new BackpressurePolicy[] {BackpressurePolicy.FAIL, BackpressurePolicy.DROP}) {
+            Portfolio p = new Portfolio(100_000.0);
+            Share abc = new Share("ABC", 100.0);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            try (OrderIntake intake = new OrderIntake(p, 4, policy)) {
+                // zatrzymuje matcher, żeby bufor dało się zapełnić
+                CompletableFuture<Object> gate = intake.submit(pf -> {
+                    started.countDown();
+                    await(release);
+                    return null;
+                });
+                started.await();
+
+                List<CompletableFuture<Long>> accepted = new ArrayList<>();
+                for (int i = 0; i < intake.getCapacity(); i++) {
+                    accepted.add(intake.placeOrder(OrderSide.BUY, abc, 1, 90.0, D));
+                }
+                if (policy == BackpressurePolicy.FAIL) {
+                    assertThrows(RejectedExecutionException.class,
+                            () -> intake.placeOrder(OrderSide.BUY, abc, 1, 90.0, D));
+                } else {
+                    assertTrue(intake.placeOrder(OrderSide.BUY, abc, 1, 90.0, D).isCancelled());
+                }
+
+                release.countDown();
+                gate.join();
+                CompletableFuture.allOf(accepted.toArray(new CompletableFuture[0])).join();
+            }
+            assertEquals(4, p.getPendingOrderCount());
+        }
+    }
+
+    @Test
+    void shouldReportValidationErrorsAndRejectAfterClose() {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        OrderIntake intake = new OrderIntake(p, 8, BackpressurePolicy.BLOCK);
+
+        CompletableFuture<Long> bad = intake.placeOrder(OrderSide.BUY, abc, 0, 90.0, D);
+        CompletableFuture<Long> good = intake.placeOrder(OrderSide.BUY, abc, 1, 90.0, D);
+        CompletionException e = assertThrows(CompletionException.class, bad::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertTrue(intake.cancelOrder(good.join()).join());
+
+        intake.close();
+        assertThrows(RejectedExecutionException.class,
+                () -> intake.placeOrder(OrderSide.BUY, abc, 1, 90.0, D));
+        assertEquals(0, p.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldFailOnlyTheOrderWhoseFillFailedAndKeepMatching() throws Exception {
+        Portfolio p = new Portfolio(1_000.0);
+        Share abc = new Share("ABC", 100.0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (OrderIntake intake = new OrderIntake(p, 16, BackpressurePolicy.BLOCK)) {
+            // trzy zlecenia w jednej partii
+            intake.submit(pf -> {
+                started.countDown();
+                await(release);
+                return null;
+            });
+            started.await();
+            CompletableFuture<Long> first = intake.placeOrder(OrderSide.BUY, abc, 5, 110.0, D);
+            CompletableFuture<Long> tooBig = intake.placeOrder(OrderSide.BUY, abc, 20, 110.0, D);
+            CompletableFuture<Long> last = intake.placeOrder(OrderSide.BUY, abc, 3, 110.0, D);
+            release.countDown();
+
+            CompletionException e = assertThrows(CompletionException.class, tooBig::join);
+            assertInstanceOf(InsufficientFundsException.class, e.getCause());
+            assertNotEquals(first.join(), last.join());
+        }
+        assertEquals(8, p.getTotalQuantity("ABC"));
+        assertEquals(0, p.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldFailPendingFuturesAndCloseWhenMatcherDiesOfError() throws Exception {
+        Portfolio p = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        p.addListener(new PortfolioListener() {
+            @Override
+            public void onOrderExecuted(Order order) {
+                throw new AssertionError("awaria wykonania");
+            }
+        });
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        OrderIntake intake = new OrderIntake(p, 16, BackpressurePolicy.BLOCK, 2);
+        intake.submit(pf -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        started.await();
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        futures.add(intake.placeOrder(OrderSide.BUY, abc, 1, 110.0, D)); // ta sama partia co bramka
+        for (int i = 0; i < 4; i++) {
+            futures.add(intake.placeOrder(OrderSide.BUY, abc, 1, 90.0, D)); // jeszcze w buforze
+        }
+        release.countDown();
+
+        for (CompletableFuture<Long> f : futures) {
+            CompletionException e = assertThrows(CompletionException.class, f::join);
+            assertInstanceOf(AssertionError.class, e.getCause());
+        }
+        assertThrows(RejectedExecutionException.class,
+                () -> intake.placeOrder(OrderSide.BUY, abc, 1, 90.0, D));
+        intake.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
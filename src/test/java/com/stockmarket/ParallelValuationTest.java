@@ -0,0 +1,89 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.valuation.ParallelValuationService;
+import com.stockmarket.logic.valuation.Valuation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelValuationTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldMatchSequentialTotalsAndBreakdown() {
+        Portfolio p = portfolio("PV", 5000, 3L);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelValuationService service = new ParallelValuationService(pool);
+            Valuation parallel = service.value(p);
+            Valuation sequential = service.valueSequential(p);
+
+            assertEquals(sequential.getNetWorth(), parallel.getNetWorth(), Math.ulp(sequential.getNetWorth()) * 4);
+            assertEquals(sequential.getMarketWorth(), parallel.getMarketWorth(), Math.ulp(sequential.getMarketWorth()) * 4);
+            // naiwna pętla w Portfolio gubi bity przy 1e9 gotówki - porównanie względne
+            assertEquals(p.recalculateTotalNetWorth(), parallel.getNetWorth(), parallel.getNetWorth() * 1e-12);
+            assertEquals(p.recalculateTotalMarketWorth(), parallel.getMarketWorth(), parallel.getMarketWorth() * 1e-12);
+            assertEquals(5000, parallel.getPositionCount());
+
+            for (AssetType type : AssetType.values()) {
+                double real = 0;
+                int count = 0;
+                for (Position pos : p.getPositionsView()) {
+                    if (pos.getAsset().getType() == type) {
+                        real += pos.getRealValue();
+                        count++;
+                    }
+                }
+                assertEquals(real, parallel.getRealValue(type), 1e-6);
+                assertEquals(count, parallel.getPositionCount(type));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldValueManyPortfoliosAndTheirTotal() {
+        List<Portfolio> portfolios = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            portfolios.add(portfolio("PM" + i + "_", 50 + i, i));
+        }
+        ParallelValuationService service = new ParallelValuationService();
+
+        List<Valuation> each = service.valueAll(portfolios);
+        Valuation total = service.valueTotal(portfolios);
+
+        assertEquals(40, each.size());
+        double sum = 0;
+        double cash = 0;
+        for (int i = 0; i < portfolios.size(); i++) {
+            assertEquals(service.valueSequential(portfolios.get(i)).getNetWorth(), each.get(i).getNetWorth(), 1e-9);
+            sum += portfolios.get(i).recalculateTotalNetWorth();
+            cash += portfolios.get(i).getCash();
+        }
+        assertEquals(sum, total.getNetWorth(), sum * 1e-12);
+        assertEquals(cash, total.getCash(), cash * 1e-12);
+    }
+
+    private static Portfolio portfolio(String prefix, int positions, long seed) {
+        Random random = new Random(seed);
+        Portfolio p = new Portfolio(1e9);
+        for (int i = 0; i < positions; i++) {
+            double price = 0.01 + random.nextDouble() * 1000;
+            Asset a = TestAssets.mixed(i, prefix + i, price);
+            p.executeBuy(a, 1 + random.nextInt(200), D);
+        }
+        return p;
+    }
+}
@@ -1,6 +1,8 @@
 package com.stockmarket;
 
 import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
 import com.stockmarket.logic.Portfolio;
 import com.stockmarket.logic.io.PortfolioPersistence;
 import com.stockmarket.logic.exceptions.DataIntegrityException;
@@ -46,4 +48,44 @@ class PersistenceTest {
         PortfolioPersistence persistence = new PortfolioPersistence();
         assertThrows(DataIntegrityException.class, () -> persistence.load(file));
     }
+
+    @Test
+    void shouldRoundTripBinaryFormatAndAutoDetectItOnLoad() {
+        Portfolio portfolio = new Portfolio(1000.0);
+        Commodity gold = new Commodity("GOLD", 200.0, 1.0);
+        Currency eur = new Currency("EUR", 4.3, 0.02);
+        Share aapl = new Share("AAPL", 10.0);
+        portfolio.executeBuy(gold, 3, LocalDate.of(2023, 5, 10));
+        portfolio.executeBuy(eur, 10, LocalDate.of(2023, 5, 11));
+        portfolio.executeBuy(aapl, 7, LocalDate.of(2023, 5, 12));
+
+        Path file = tempDir.resolve("portfolio.bin");
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        persistence.saveBinary(file, portfolio);
+
+        Portfolio loaded = persistence.load(file);
+        assertEquals(portfolio.getCash(), loaded.getCash(), 0.0);
+        assertEquals(3, loaded.getTotalQuantity("GOLD"));
+        assertEquals(10, loaded.getTotalQuantity("EUR"));
+        assertEquals(7, loaded.getTotalQuantity("AAPL"));
+        assertEquals(0.02, ((Currency) loaded.getPositionOrNull("EUR").getAsset()).getSpread(), 0.0);
+        assertEquals(LocalDate.of(2023, 5, 10),
+                loaded.getPositionOrNull("GOLD").getLotsSnapshot().get(0).getPurchaseDate());
+    }
+
+    @Test
+    void shouldValidateBinaryFormatLikeTextFormat() throws Exception {
+        Portfolio portfolio = new Portfolio(1000.0);
+        portfolio.executeBuy(new Commodity("GOLD", 200.0, 1.0), 3, LocalDate.of(2023, 5, 10));
+        Path file = tempDir.resolve("bad.bin");
+        PortfolioPersistence persistence = new PortfolioPersistence();
+        persistence.saveBinary(file, portfolio);
+
+        // deklarowana ilość w rekordzie ASSET: MAGIC(4) VER(2) HEADER(1+4+8) prefiks(1+4) typ(1) ticker(2+4)
+        byte[] bytes = java.nio.file.Files.readAllBytes(file);
+        java.nio.ByteBuffer.wrap(bytes).putInt(4 + 2 + 13 + 5 + 1 + 2 + 4, 4);
+        java.nio.file.Files.write(file, bytes);
+
+        assertThrows(DataIntegrityException.class, () -> persistence.load(file));
+    }
 }
@@ -0,0 +1,92 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.engine.PortfolioEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioEngineTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldRouteCommandsToSingleWriterShards() {
+        // jedno aktywo wspólne dla wszystkich shardów, cena zmieniana w trakcie z wątku testu
+        Share abc = new Share("ABC", 10.0);
+        try (PortfolioEngine engine = new PortfolioEngine(4)) {
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String id = "P" + i;
+                futures.add(engine.register(id, new Portfolio(10_000.0)));
+                for (int k = 0; k < 10; k++) {
+                    futures.add(engine.buy(id, abc, 2, D));
+                }
+                futures.add(engine.sell(id, abc, 5, D));
+                abc.setMarketPrice(10.0 + i % 3);
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            abc.setMarketPrice(20.0);
+
+            for (int i = 0; i < 100; i++) {
+                int qty = engine.submit("P" + i, p -> p.getTotalQuantity("ABC")).join();
+                assertEquals(15, qty);
+                double[] worth = engine.submit("P" + i, p -> new double[] {
+                        p.calculateTotalMarketWorth(), p.recalculateTotalMarketWorth(), p.getCash()}).join();
+                assertEquals(worth[1], worth[0], 1e-9);
+                assertEquals(worth[2] + 15 * 20.0, worth[0], 1e-9);
+            }
+
+            Portfolio withTriggers = new Portfolio(1_000.0);
+            withTriggers.enablePriceTriggers();
+            assertThrows(IllegalArgumentException.class, () -> engine.register("T", withTriggers));
+
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> engine.submit("missing", Portfolio::getCash).join());
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void shouldCompleteEveryAcceptedCommandWhenClosedConcurrently() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            PortfolioEngine engine = new PortfolioEngine(2);
+            engine.register("P", new Portfolio(1_000.0)).join();
+            List<CompletableFuture<Double>> accepted = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                producers.add(new Thread(() -> {
+                    try {
+                        while (true) {
+                            accepted.add(engine.submit("P", Portfolio::getCash));
+                        }
+                    } catch (RejectedExecutionException closed) {
+                        // koniec - silnik zamknięty
+                    }
+                }));
+            }
+            producers.forEach(Thread::start);
+            Thread.sleep(2);
+            engine.close();
+            for (Thread p : producers) {
+                p.join();
+            }
+
+            assertFalse(accepted.isEmpty());
+            for (CompletableFuture<Double> f : accepted) {
+                // przyjęta przed close() komenda musi zostać wykonana, a nie zawisnąć za STOP
+                assertEquals(1_000.0, f.get(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.SaleReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTriggerTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldActivateOnlyOrdersCrossedByNewPrice() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Share abc = new Share("ABC", 100.0);
+        portfolio.executeBuy(abc, 10, D);
+        portfolio.enablePriceTriggers();
+
+        portfolio.placeOrder(OrderSide.SELL, abc, 2, 110.0, D);
+        portfolio.placeOrder(OrderSide.SELL, abc, 3, 120.0, D);
+        assertNull(portfolio.processNextExecutableOrder());
+
+        abc.setMarketPrice(115.0); // przekracza tylko limit 110
+        SaleReport report = portfolio.processNextExecutableOrder();
+
+        assertNotNull(report);
+        assertEquals(2, report.getQuantitySold());
+        assertEquals(115.0, abc.getMarketPrice(), 0.0001);
+        assertNull(portfolio.processNextExecutableOrder());
+        assertEquals(1, portfolio.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldRejectNaNPriceBeforeStoringOrNotifying() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Share abc = new Share("ABC", 100.0);
+        portfolio.executeBuy(abc, 10, D);
+        portfolio.enablePriceTriggers();
+        portfolio.placeOrder(OrderSide.SELL, abc, 2, 110.0, D);
+        double worth = portfolio.calculateTotalMarketWorth();
+
+        assertThrows(IllegalArgumentException.class, () -> abc.setMarketPrice(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new Share("NAN", Double.NaN));
+
+        assertEquals(100.0, abc.getMarketPrice(), 0.0);
+        assertEquals(worth, portfolio.calculateTotalMarketWorth(), 0.0);
+        abc.setMarketPrice(115.0); // kolejne notowania nadal aktywują zlecenia
+        assertNotNull(portfolio.processNextExecutableOrder());
+    }
+
+    @Test
+    void shouldKeepSnapshotSemanticsWhenTriggersDisabled() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Share abc = new Share("ABC", 100.0);
+
+        portfolio.placeOrder(OrderSide.BUY, abc, 1, 95.0, D);
+        abc.setMarketPrice(90.0);
+
+        assertNull(portfolio.processNextExecutableOrder());
+        assertEquals(0, portfolio.getTotalQuantity("ABC"));
+    }
+
+    @Test
+    void shouldFillAtSnapshotWithoutRewindingAssetPrice() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Share abc = new Share("ABC", 100.0);
+        portfolio.enablePriceTriggers();
+
+        portfolio.placeOrder(OrderSide.BUY, abc, 10, 95.0, D);   // aktywowane przy 94
+        portfolio.placeOrder(OrderSide.SELL, abc, 1, 120.0, D);  // nie może się aktywować
+        abc.setMarketPrice(94.0);
+        abc.setMarketPrice(110.0);
+
+        double cashBefore = portfolio.getCash();
+        portfolio.processAllExecutableOrders();
+
+        // koszt wg ceny aktywacji, cena aktywa dalej 110 - bez powrotu do 94
+        assertEquals(abc.calculatePurchaseCost(10, 94.0), cashBefore - portfolio.getCash(), 1e-9);
+        assertEquals(110.0, abc.getMarketPrice(), 0.0);
+        assertEquals(10, portfolio.getTotalQuantity("ABC"));
+        assertEquals(1, portfolio.getPendingOrderCount());
+    }
+
+    @Test
+    void shouldStopWatchingAssetWithoutRestingOrders() {
+        Portfolio portfolio = new Portfolio(100000.0);
+        Share abc = new Share("ABC", 100.0);
+        Share xyz = new Share("XYZ", 50.0);
+        portfolio.enablePriceTriggers();
+
+        long abcOrder = portfolio.placeOrder(OrderSide.BUY, abc, 1, 90.0, D);
+        portfolio.placeOrder(OrderSide.BUY, xyz, 1, 45.0, D);
+        assertTrue(portfolio.isPriceTriggerWatching(abc));
+        assertTrue(portfolio.isPriceTriggerWatching(xyz));
+
+        portfolio.cancelOrder(abcOrder);
+        assertFalse(portfolio.isPriceTriggerWatching(abc));
+
+        xyz.setMarketPrice(44.0); // aktywuje ostatnie spoczywające zlecenie XYZ
+        assertFalse(portfolio.isPriceTriggerWatching(xyz));
+        portfolio.processAllExecutableOrders();
+        assertEquals(1, portfolio.getTotalQuantity("XYZ"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.LotCursor;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadOnlyViewsTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldReflectLiveStateAndRejectModification() {
+        Portfolio p = new Portfolio(10_000.0);
+        Share aaa = new Share("AAA", 10.0);
+
+        assertTrue(p.getPositionsView().isEmpty());
+        p.executeBuy(aaa, 5, D);
+        p.addToWatchlist("MSFT");
+
+        assertEquals(1, p.getPositionsView().size());
+        assertTrue(p.getWatchlistView().contains("MSFT"));
+        assertThrows(UnsupportedOperationException.class, () -> p.getWatchlistView().add("X"));
+        assertThrows(UnsupportedOperationException.class, () -> p.getPositionsView().clear());
+    }
+
+    @Test
+    void shouldFailFastOnConcurrentModification() {
+        Portfolio p = new Portfolio(10_000.0);
+        Share aaa = new Share("AAA", 10.0);
+        p.executeBuy(aaa, 5, D);
+        p.executeBuy(aaa, 5, D.plusDays(1));
+
+        Position position = p.getPositionOrNull("AAA");
+        LotCursor cursor = position.lotCursor();
+        assertTrue(cursor.next());
+        assertEquals(D, cursor.purchaseDate());
+        p.executeSell(aaa, 2, D);
+        assertThrows(ConcurrentModificationException.class, cursor::quantity);
+
+        Iterator<Position> it = p.getPositionsView().iterator();
+        p.executeBuy(new Share("BBB", 1.0), 1, D);
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+}
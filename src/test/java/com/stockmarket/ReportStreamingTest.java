@@ -0,0 +1,93 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.Position;
+import com.stockmarket.logic.report.PortfolioReportGenerator;
+import com.stockmarket.logic.report.PositionReportComparator;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportStreamingTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldMatchReferenceFormattingAndOrder() {
+        Portfolio p = randomPortfolio(300, 7L);
+
+        StringWriter out = new StringWriter();
+        new PortfolioReportGenerator().writeReport(p, out);
+
+        assertEquals(reference(p), out.toString());
+        assertEquals(reference(p), new PortfolioReportGenerator().generateReport(p));
+    }
+
+    @Test
+    void shouldKeepTopNPerAssetType() {
+        Portfolio p = randomPortfolio(300, 11L);
+        String full = new PortfolioReportGenerator().generateReport(p);
+
+        StringBuilder top = new StringBuilder();
+        new PortfolioReportGenerator().writeTopReport(p, 5, top);
+
+        // oczekiwane: z pełnego raportu pierwsze 5 wierszy każdego typu
+        StringBuilder expected = new StringBuilder();
+        String currentType = null;
+        int taken = 0;
+        for (String line : full.split("\n")) {
+            if (line.startsWith("CASH|")) {
+                expected.append(line).append('\n');
+                continue;
+            }
+            String type = line.split("\\|")[1];
+            if (!type.equals(currentType)) {
+                currentType = type;
+                taken = 0;
+            }
+            if (taken++ < 5) {
+                expected.append(line).append('\n');
+            }
+        }
+        assertEquals(expected.toString(), top.toString());
+        assertThrows(IllegalArgumentException.class, () -> new PortfolioReportGenerator().writeTopReport(p, 0, top));
+    }
+
+    private static Portfolio randomPortfolio(int positions, long seed) {
+        Random random = new Random(seed);
+        // ceny z "trudnymi" połówkami (1.005, 2.675 nie mają dokładnej reprezentacji binarnej)
+        double[] tricky = {1.005, 2.675, 0.125, 0.375, 1.115, 10.005};
+        Portfolio p = new Portfolio(1e9 + 0.125);
+        for (int i = 0; i < positions; i++) {
+            double price = i % 4 == 0 ? tricky[i % tricky.length] : random.nextInt(100_000) / 1000.0;
+            Asset a = TestAssets.mixed(i, "R" + i, price);
+            p.executeBuy(a, 1 + random.nextInt(50), D);
+            if (i % 10 == 0) {
+                a.setMarketPrice(0.0);
+            }
+        }
+        return p;
+    }
+
+    private static String reference(Portfolio portfolio) {
+        List<Position> positions = new ArrayList<>(portfolio.getPositionsView());
+        positions.sort(new PositionReportComparator());
+        StringBuilder sb = new StringBuilder();
+        sb.append("CASH|").append(String.format(Locale.US, "%.2f", portfolio.getCash())).append("\n");
+        for (Position p : positions) {
+            sb.append("ASSET|").append(p.getAsset().getType()).append("|").append(p.getAsset().getTicker())
+                    .append("|").append(p.getTotalQuantity()).append("|")
+                    .append(String.format(Locale.US, "%.2f", p.getAsset().getMarketValue(p.getTotalQuantity())))
+                    .append("\n");
+        }
+        return sb.toString();
+    }
+}
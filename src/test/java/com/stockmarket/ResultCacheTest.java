@@ -0,0 +1,82 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.report.PortfolioResultCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldBumpVersionOnMutationsAndHeldPriceChanges() {
+        Portfolio p = new Portfolio(10_000.0);
+        Share held = new Share("HLD", 10.0);
+        Share other = new Share("OTH", 10.0);
+
+        long v0 = p.getVersion();
+        p.executeBuy(held, 5, D);
+        long v1 = p.getVersion();
+        assertTrue(v1 > v0);
+
+        other.setMarketPrice(11.0);              // nie trzymane - bez zmiany wersji
+        assertEquals(v1, p.getVersion());
+
+        held.setMarketPrice(12.0);
+        long v2 = p.getVersion();
+        assertTrue(v2 > v1);
+
+        p.placeOrder(OrderSide.SELL, held, 1, 50.0, D);
+        long v3 = p.getVersion();
+        assertTrue(v3 > v2);
+
+        p.executeSell(held, 5, D);
+        assertTrue(p.getVersion() > v3);
+    }
+
+    @Test
+    void shouldServeMemoizedResultsUntilVersionChanges() {
+        Portfolio p = new Portfolio(10_000.0);
+        Share abc = new Share("ABC", 10.0);
+        p.executeBuy(abc, 5, D);
+        PortfolioResultCache cache = new PortfolioResultCache(4);
+
+        String r1 = cache.report(p);
+        assertSame(r1, cache.report(p));
+        assertEquals(p.calculateTotalNetWorth(), cache.netWorth(p), 1e-9);
+        cache.netWorth(p);
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        abc.setMarketPrice(20.0);
+        String r2 = cache.report(p);
+        assertNotEquals(r1, r2);
+        assertEquals(p.calculateTotalMarketWorth(), cache.marketWorth(p), 1e-9);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPortfolio() {
+        PortfolioResultCache cache = new PortfolioResultCache(2);
+        Portfolio a = new Portfolio(1.0);
+        Portfolio b = new Portfolio(2.0);
+        Portfolio c = new Portfolio(3.0);
+
+        cache.report(a);
+        cache.report(b);
+        cache.report(a);   // a świeższe niż b
+        cache.report(c);   // wypada b
+
+        assertEquals(2, cache.size());
+        long misses = cache.getMisses();
+        cache.report(a);
+        assertEquals(misses, cache.getMisses());
+        cache.report(b);
+        assertEquals(misses + 1, cache.getMisses());
+    }
+}
@@ -0,0 +1,95 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningWorthTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void shouldKeepRunningTotalsInLineWithFullRecalculation() {
+        Portfolio p = new Portfolio(1_000_000.0);
+        p.setWorthVerification(true);
+
+        Share aaa = new Share("AAA", 10.0);
+        Commodity gold = new Commodity("GOLD", 200.0, 1.5);
+        Currency eur = new Currency("EUR", 4.0, 0.02);
+
+        p.executeBuy(aaa, 50, D);
+        p.executeBuy(gold, 120, D);
+        p.executeBuy(eur, 2000, D);
+        aaa.setMarketPrice(12.5);
+        gold.setMarketPrice(180.0);
+        p.executeSell(eur, 1500, D);
+        p.executeSell(aaa, 50, D);
+        eur.setMarketPrice(4.3);
+
+        assertEquals(p.recalculateTotalNetWorth(), p.calculateTotalNetWorth(), 1e-6);
+        assertEquals(p.recalculateTotalMarketWorth(), p.calculateTotalMarketWorth(), 1e-6);
+
+        // sprzedana pozycja nie może już wpływać na sumy
+        aaa.setMarketPrice(99.0);
+        assertEquals(p.recalculateTotalNetWorth(), p.calculateTotalNetWorth(), 1e-6);
+    }
+
+    @Test
+    void shouldFollowPricesOfAssetSharedByPortfoliosOnDifferentThreads() throws Exception {
+        Share abc = new Share("ABC", 10.0);
+        List<Portfolio> portfolios = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Portfolio p = new Portfolio(1_000_000.0);
+            portfolios.add(p);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    p.executeBuy(abc, 1, D);
+                    p.calculateTotalMarketWorth();
+                }
+            }));
+        }
+        Thread ticker = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                abc.setMarketPrice(10.0 + i % 7);
+            }
+        });
+        threads.forEach(Thread::start);
+        ticker.start();
+        for (Thread t : threads) {
+            t.join();
+        }
+        ticker.join();
+        abc.setMarketPrice(42.0);
+
+        for (Portfolio p : portfolios) {
+            p.setWorthVerification(true);
+            assertEquals(p.recalculateTotalMarketWorth(), p.calculateTotalMarketWorth(), 1e-6);
+            assertEquals(p.recalculateTotalNetWorth(), p.calculateTotalNetWorth(), 1e-6);
+        }
+    }
+
+    @Test
+    void shouldDetectDriftInVerificationMode() {
+        Portfolio p = new Portfolio(10_000.0);
+        Share aaa = new Share("AAA", 10.0);
+        p.executeBuy(aaa, 10, D);
+
+        // zmiana z pominięciem Portfolio
+        p.getPositionOrNull("AAA").addLot(D, 5, 10.0);
+        p.setWorthVerification(true);
+
+        assertThrows(DataIntegrityException.class, p::calculateTotalNetWorth);
+        p.resyncWorth();
+        assertEquals(p.recalculateTotalNetWorth(), p.calculateTotalNetWorth(), 1e-9);
+    }
+}
@@ -0,0 +1,26 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+
+/**
+ * Wspólne fabryki aktywów dla testów z losowymi portfelami.
+ */
+final class TestAssets {
+
+    private TestAssets() {
+    }
+
+    /**
+     * Kolejno Share, Commodity, Currency wg i % 3 - portfel z wszystkimi typami aktywów.
+     */
+    static Asset mixed(int i, String ticker, double price) {
+        return switch (i % 3) {
+            case 0 -> new Share(ticker, price);
+            case 1 -> new Commodity(ticker, price, 0.01);
+            default -> new Currency(ticker, price, 0.001);
+        };
+    }
+}
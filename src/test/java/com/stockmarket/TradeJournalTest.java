@@ -0,0 +1,148 @@
+package com.stockmarket;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.OrderSide;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.exceptions.DataIntegrityException;
+import com.stockmarket.logic.io.FsyncPolicy;
+import com.stockmarket.logic.io.TradeJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeJournalTest {
+
+    private static final LocalDate D = LocalDate.of(2023, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRecoverSnapshotPlusJournalTail() throws Exception {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        Share abc = new Share("ABC", 100.0);
+        Commodity gold = new Commodity("GOLD", 200.0, 1.0);
+
+        try (TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_GROUP, 4)) {
+            portfolio.executeBuy(abc, 10, D);
+            portfolio.executeBuy(gold, 5, D);
+            journal.checkpoint();
+
+            abc.setMarketPrice(110.0);
+            portfolio.executeSell(abc, 4, D.plusDays(1));
+            portfolio.addToWatchlist("MSFT");
+            portfolio.addToWatchlist("TSLA");
+            portfolio.removeFromWatchlist("TSLA");
+            portfolio.placeOrder(OrderSide.SELL, gold, 2, 250.0, D.plusDays(1)); // spoczywa
+            portfolio.placeOrder(OrderSide.BUY, abc, 1, 120.0, D.plusDays(1));   // wykonalne
+            portfolio.processNextExecutableOrder();
+        }
+
+        TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1);
+        Portfolio p = recovered.getPortfolio();
+        recovered.close();
+
+        assertEquals(portfolio.getCash(), p.getCash(), 0.0);
+        assertEquals(7, p.getTotalQuantity("ABC"));
+        assertEquals(5, p.getTotalQuantity("GOLD"));
+        assertEquals(portfolio.getWatchlistSnapshot(), p.getWatchlistSnapshot());
+        assertEquals(1, p.getPendingOrderCount());
+        assertEquals(250.0, p.peekNextOrder().getLimitPrice(), 0.0);
+    }
+
+    @Test
+    void shouldIgnoreTornTailRecord() throws Exception {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        Share abc = new Share("ABC", 100.0);
+        TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.NEVER, 100);
+        portfolio.executeBuy(abc, 3, D);
+        journal.close();
+
+        Path log = dir.resolve("journal-" + journal.getGeneration() + ".log");
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.NEVER, 100);
+        assertEquals(3, recovered.getPortfolio().getTotalQuantity("ABC"));
+        assertEquals(portfolio.getCash(), recovered.getPortfolio().getCash(), 0.0);
+        recovered.close();
+    }
+
+    @Test
+    void shouldNotRestoreOrderWhoseFillWasRejected() throws Exception {
+        Portfolio portfolio = new Portfolio(1_000.0);
+        Share abc = new Share("ABC", 100.0);
+        try (TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_RECORD, 1)) {
+            portfolio.placeOrder(OrderSide.BUY, abc, 50, 110.0, D); // za drogie
+            portfolio.placeOrder(OrderSide.BUY, abc, 2, 110.0, D);
+            portfolio.processAllExecutableOrders();
+        }
+
+        try (TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.EVERY_RECORD, 1)) {
+            Portfolio p = recovered.getPortfolio();
+            assertEquals(0, p.getPendingOrderCount());
+            assertEquals(2, p.getTotalQuantity("ABC"));
+            assertEquals(portfolio.getCash(), p.getCash(), 1e-9);
+        }
+    }
+
+    @Test
+    void shouldRollBackFailedCheckpointAndKeepJournaling() throws Exception {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        Share abc = new Share("ABC", 100.0);
+        TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_RECORD, 1);
+        long generation = journal.getGeneration();
+        // katalog w miejscu dziennika następnej generacji - przeniesienie pliku się nie uda
+        Path blocker = dir.resolve("journal-" + (generation + 1) + ".log");
+        Files.createDirectories(blocker.resolve("x"));
+
+        portfolio.executeBuy(abc, 2, D);
+        assertThrows(DataIntegrityException.class, journal::checkpoint);
+        assertFalse(journal.isFailed());
+        assertEquals(generation, journal.getGeneration());
+        assertFalse(Files.exists(dir.resolve("snapshot-" + (generation + 1) + ".bin")));
+
+        portfolio.executeBuy(abc, 3, D);
+        journal.close();
+        Files.delete(blocker.resolve("x"));
+        Files.delete(blocker);
+
+        try (TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.NEVER, 100)) {
+            assertEquals(5, recovered.getPortfolio().getTotalQuantity("ABC"));
+            assertEquals(portfolio.getCash(), recovered.getPortfolio().getCash(), 0.0);
+        }
+    }
+
+    @Test
+    void shouldMarkJournalFailedInsteadOfThrowingFromMutation() throws Exception {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        Share abc = new Share("ABC", 100.0);
+        // ticker dłuższy niż pozwala format rekordu
+        Share unrecordable = new Share("X".repeat(70_000), 1.0);
+        TradeJournal journal = TradeJournal.create(dir, portfolio, FsyncPolicy.EVERY_RECORD, 1);
+
+        portfolio.executeBuy(unrecordable, 1, D); // mutacja się odbywa, wyjątek nie wychodzi
+        assertEquals(1, portfolio.getTotalQuantity(unrecordable));
+        assertTrue(journal.isFailed());
+        assertNotNull(journal.getFailure());
+        assertThrows(DataIntegrityException.class, journal::flush);
+
+        portfolio.executeSell(unrecordable, 1, D);
+        portfolio.executeBuy(abc, 4, D); // pominięte w dzienniku, ale obejmie je checkpoint
+        journal.checkpoint();
+        assertFalse(journal.isFailed());
+        portfolio.executeBuy(abc, 1, D);
+        journal.close();
+
+        try (TradeJournal recovered = TradeJournal.recover(dir, FsyncPolicy.NEVER, 100)) {
+            assertEquals(5, recovered.getPortfolio().getTotalQuantity("ABC"));
+            assertEquals(portfolio.getCash(), recovered.getPortfolio().getCash(), 0.0);
+        }
+    }
+}